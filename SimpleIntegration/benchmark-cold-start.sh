@@ -0,0 +1,46 @@
+#!/bin/bash
+# Measures the cold start time of the installed SimpleIntegration app.
+# Usage: ./benchmark-cold-start.sh [runs]
+#
+# Each run force-stops the app and launches it with `am start -W`, which waits until the
+# first frame is drawn and reports TotalTime. Run it once per build you want to compare
+# (e.g. before and after a change to how the native module is loaded) on the same device.
+
+set -e
+
+GREEN='\033[0;32m'
+BLUE='\033[0;34m'
+YELLOW='\033[1;33m'
+NC='\033[0m' # No Color
+
+RUNS="${1:-20}"
+PACKAGE="com.simpleintegration"
+ACTIVITY="$PACKAGE/.MainActivity"
+
+export ANDROID_HOME="${ANDROID_HOME:-$HOME/Library/Android/sdk}"
+export PATH=$PATH:$ANDROID_HOME/platform-tools
+
+if ! adb shell pm path "$PACKAGE" > /dev/null 2>&1; then
+  echo -e "${YELLOW}❌ $PACKAGE is not installed. Install a release build first:${NC}"
+  echo -e "${YELLOW}  npx react-native run-android --variant=release${NC}"
+  exit 1
+fi
+
+echo -e "${BLUE}⏱  Measuring cold start of $PACKAGE over $RUNS runs...${NC}"
+
+TIMES=()
+for ((i = 1; i <= RUNS; i++)); do
+  adb shell am force-stop "$PACKAGE"
+  sleep 1
+  TOTAL=$(adb shell am start -W -n "$ACTIVITY" | tr -d '\r' | awk -F': ' '/TotalTime/ {print $2}')
+  TIMES+=("$TOTAL")
+  echo "  run $i: ${TOTAL} ms"
+done
+adb shell am force-stop "$PACKAGE"
+
+printf '%s\n' "${TIMES[@]}" | sort -n | awk -v green="$GREEN" -v nc="$NC" '
+  { t[NR] = $1; sum += $1 }
+  END {
+    printf "%s✅ mean %.0f ms, median %d ms, min %d ms, max %d ms%s\n",
+      green, sum / NR, t[int((NR + 1) / 2)], t[1], t[NR], nc
+  }'
@@ -0,0 +1,13 @@
+# Consumer rules applied to apps that use the module.
+
+# The wallet integrations are looked up by class name (see WalletProviders)
+-keep class ae.network.PlayServicesGooglePayProvider {
+    <init>(android.content.Context);
+}
+-keep class ae.network.SdkSamsungPayProvider {
+    <init>();
+}
+
+# payment-sdk's PaymentClient refers to the Samsung Pay SDK, which apps may leave out
+-dontwarn payment.sdk.android.samsungpay.**
+-dontwarn com.samsung.android.sdk.samsungpay.**
@@ -0,0 +1,91 @@
+package ae.network;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the Google Pay request, per configuration and per payment, and reading the token out
+ * of the PaymentData JSON Google Pay returns. Reading is measured against the JSONObject parse it
+ * replaced, on a minimal response and on one whose ECv2 token has the size of a real one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GooglePayBenchmark {
+
+    private JavaOnlyMap googlePayConfig;
+    private GooglePayRequestTemplate template;
+
+    @Setup
+    public void setUp() throws JSONException {
+        googlePayConfig = PaymentFixtures.googlePayConfig();
+        template = GooglePayRequestTemplate.compile(googlePayConfig);
+    }
+
+    @Benchmark
+    public GooglePayRequestTemplate compileRequestTemplate() throws JSONException {
+        return GooglePayRequestTemplate.compile(googlePayConfig);
+    }
+
+    @Benchmark
+    public String createPaymentDataRequestJson() {
+        return template.createPaymentDataRequestJson("4200.00", "AED");
+    }
+
+    @Benchmark
+    public void readPaymentData(PaymentDataState state, Blackhole blackhole) throws IOException {
+        GooglePayPaymentData paymentData = GooglePayPaymentData.fromJson(state.json);
+        blackhole.consume(paymentData.getToken());
+        blackhole.consume(paymentData.getCardNetwork());
+        blackhole.consume(paymentData.getCardDetails());
+    }
+
+    /**
+     * The tree parse {@link GooglePayPaymentData} replaced, reading the same three values.
+     */
+    @Benchmark
+    public void readPaymentDataWithJsonObject(PaymentDataState state, Blackhole blackhole)
+            throws JSONException {
+        JSONObject paymentMethodData = new JSONObject(state.json).getJSONObject("paymentMethodData");
+        JSONObject info = paymentMethodData.getJSONObject("info");
+        blackhole.consume(paymentMethodData.getJSONObject("tokenizationData").getString("token"));
+        blackhole.consume(info.getString("cardNetwork"));
+        blackhole.consume(info.getString("cardDetails"));
+    }
+
+    @State(Scope.Benchmark)
+    public static class PaymentDataState {
+
+        @Param({"minimal", "realistic"})
+        public String payload;
+
+        String json;
+
+        @Setup
+        public void setUp() {
+            json = "minimal".equals(payload)
+                    ? PaymentFixtures.GOOGLE_PAY_PAYMENT_DATA_JSON
+                    : PaymentFixtures.realisticGooglePayPaymentDataJson();
+        }
+    }
+}
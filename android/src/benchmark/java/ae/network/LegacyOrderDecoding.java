@@ -0,0 +1,90 @@
+package ae.network;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import payment.sdk.android.core.Order;
+
+/**
+ * The order decoding {@link Utils#constructOrderFromReadableMap} replaced, kept unchanged as the
+ * baseline for {@link OrderDecodingBenchmark}. It walks the map again for every nested value and
+ * has the original bugs, such as adding the wallets to the card list; do not use it elsewhere.
+ */
+final class LegacyOrderDecoding {
+
+    private LegacyOrderDecoding() {
+    }
+
+    static Order constructOrderFromReadableMap(ReadableMap orderMap) {
+        Order order = new Order();
+
+        // Outlet and referenceID
+        order.setOutletId(orderMap.getString("outletId"));
+        order.setReference(orderMap.getString("reference"));
+
+        // Need to revisit this and add a builder to make it look better
+        Order.Amount amount = new Order.Amount();
+        amount.setCurrencyCode(orderMap.getMap("amount").getString("currencyCode"));
+        // payment-sdk-core 5.x changed Order.Amount.setValue to take a Double
+        // (was int-compatible in 3.0.x); cast so the int amount autoboxes correctly.
+        amount.setValue((double) orderMap.getMap("amount").getInt("value"));
+        order.setAmount(amount);
+
+        // Set links
+        Order.Links links = new Order.Links();
+
+        Order.Href paymentHref = new Order.Href();
+        Order.Href paymentAuthHref = new Order.Href();
+
+        paymentHref.setHref(orderMap.getMap("_links").getMap("payment").getString("href"));
+        paymentAuthHref.setHref(orderMap.getMap("_links").getMap("payment-authorization").getString("href"));
+
+        links.setPaymentAuthorizationUrl(paymentAuthHref);
+        links.setPaymentUrl(paymentHref);
+        order.setLinks(links);
+
+        // Set PaymentMethods
+        Order.PaymentMethods paymentMethods = new Order.PaymentMethods();
+
+        ReadableArray cardsArray = orderMap.getMap("paymentMethods").getArray("card");
+        List<String> cards = new ArrayList<>();
+        for (int i = 0; i < cardsArray.size(); i++) {
+            cards.add(cardsArray.getString(i));
+        }
+        paymentMethods.setCard(cards);
+
+        ReadableArray walletsArray = orderMap.getMap("paymentMethods").getArray("wallet");
+        List<String> wallets = new ArrayList<>();
+        for (int i = 0; i < walletsArray.size(); i++) {
+            cards.add(walletsArray.getString(i));
+        }
+        paymentMethods.setWallet(wallets.toArray(new String[0]));
+
+        order.setPaymentMethods(paymentMethods);
+
+        // Set embeddedObject
+        Order.PaymentLinks paymentLinks = new Order.PaymentLinks();
+        Order.Href samsungPayHref = new Order.Href();
+        samsungPayHref.setHref(
+                orderMap.getMap("_embedded")
+                        .getArray("payment")
+                        .getMap(0)
+                        .getMap("_links")
+                        .getMap("payment:samsung_pay")
+                        .getString("href")
+        );
+
+        paymentLinks.setSamsungPayLink(samsungPayHref);
+
+        Order.Payment payment = new Order.Payment();
+        payment.setLinks(paymentLinks);
+
+        Order.Embedded embedded = new Order.Embedded();
+        embedded.setPayment(new Order.Payment[]{payment});
+        order.setEmbedded(embedded);
+        return order;
+    }
+}
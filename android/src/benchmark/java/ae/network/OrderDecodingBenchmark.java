@@ -0,0 +1,94 @@
+package ae.network;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import payment.sdk.android.core.Order;
+import payment.sdk.android.core.PaymentResponse;
+
+/**
+ * Decoding an order or a 3DS payment response into payment-sdk models, from the bridge map and
+ * from the order JSON. Orders come in three sizes, by the number of embedded payments, and the map
+ * decoding is measured against the {@link LegacyOrderDecoding} it replaced.
+ *
+ * <p>The maps are {@link JavaOnlyMap}s, so every read is a plain {@code HashMap} lookup. On a
+ * device the bridge hands the module a {@code ReadableNativeMap} whose reads may cross JNI, and the
+ * legacy decoding makes more of them; these numbers leave that cost out and say nothing about it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderDecodingBenchmark {
+
+    private JavaOnlyMap paymentResponseMap;
+
+    @Setup
+    public void setUp() {
+        paymentResponseMap = PaymentFixtures.paymentResponseMap();
+    }
+
+    @Benchmark
+    public Order constructOrderFromReadableMap(OrderState state) {
+        return Utils.constructOrderFromReadableMap(state.orderMap);
+    }
+
+    @Benchmark
+    public Order legacyConstructOrderFromReadableMap(OrderState state) {
+        return LegacyOrderDecoding.constructOrderFromReadableMap(state.orderMap);
+    }
+
+    @Benchmark
+    public Order orderProjectionToOrder(OrderState state) throws IOException {
+        return OrderProjection.fromJson(state.orderJson).toOrder();
+    }
+
+    @Benchmark
+    public PaymentResponse buildPaymentResponseFromReadableMap() {
+        return Utils.buildPaymentResponseFromReadableMap(paymentResponseMap);
+    }
+
+    @State(Scope.Benchmark)
+    public static class OrderState {
+
+        @Param({"small", "medium", "large"})
+        public String order;
+
+        String orderJson;
+        JavaOnlyMap orderMap;
+
+        @Setup
+        public void setUp() {
+            int payments;
+            switch (order) {
+                case "small":
+                    payments = 1;
+                    break;
+                case "medium":
+                    payments = 5;
+                    break;
+                default:
+                    payments = 25;
+                    break;
+            }
+            orderJson = PaymentFixtures.orderJson(payments);
+            orderMap = PaymentFixtures.orderMap(payments);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ae.network;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import com.google.android.gms.common.api.ApiException;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.wallet.AutoResolveHelper;
+import com.google.android.gms.wallet.IsReadyToPayRequest;
+import com.google.android.gms.wallet.PaymentData;
+import com.google.android.gms.wallet.PaymentDataRequest;
+import com.google.android.gms.wallet.PaymentsClient;
+import com.google.android.gms.wallet.Wallet;
+import com.google.android.gms.wallet.WalletConstants;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Google Pay through play-services-wallet. Loaded by name from {@link WalletProviders}.
+ */
+class PlayServicesGooglePayProvider implements GooglePayProvider {
+
+    private final Context context;
+    // Wallet clients keyed by wallet environment. They live as long as the module so repeated
+    // checks skip client construction.
+    private final Map<Integer, PaymentsClient> paymentsClients = new ConcurrentHashMap<>();
+    // The isReadyToPay request does not depend on the merchant config, so it is built once
+    private volatile IsReadyToPayRequest isReadyToPayRequest;
+
+    PlayServicesGooglePayProvider(Context context) {
+        this.context = context;
+    }
+
+    private static int toWalletConstant(String environment) {
+        return GooglePayRequestTemplate.ENVIRONMENT_PRODUCTION.equals(environment) ?
+                WalletConstants.ENVIRONMENT_PRODUCTION : WalletConstants.ENVIRONMENT_TEST;
+    }
+
+    private PaymentsClient getPaymentsClient(String environment) {
+        int walletEnvironment = toWalletConstant(environment);
+        PaymentsClient client = paymentsClients.get(walletEnvironment);
+        if (client == null) {
+            Wallet.WalletOptions walletOptions = new Wallet.WalletOptions.Builder()
+                    .setEnvironment(walletEnvironment)
+                    .build();
+            client = Wallet.getPaymentsClient(context, walletOptions);
+            PaymentsClient existing = paymentsClients.putIfAbsent(walletEnvironment, client);
+            if (existing != null) {
+                client = existing;
+            }
+        }
+        return client;
+    }
+
+    @Override
+    public void isReadyToPay(String environment, String isReadyToPayRequestJson,
+                             PaymentLauncher.AvailabilityListener listener) {
+        try {
+            IsReadyToPayRequest request = isReadyToPayRequest;
+            if (request == null) {
+                request = IsReadyToPayRequest.fromJson(isReadyToPayRequestJson);
+                isReadyToPayRequest = request;
+            }
+            Task<Boolean> task = getPaymentsClient(environment).isReadyToPay(request);
+            task.addOnCompleteListener(completedTask -> {
+                try {
+                    listener.onResult(completedTask.getResult(ApiException.class));
+                } catch (ApiException exception) {
+                    listener.onResult(null);
+                }
+            });
+        } catch (Exception e) {
+            listener.onResult(null);
+        }
+    }
+
+    @Override
+    public void loadPaymentData(Activity activity, String environment, String paymentDataRequestJson,
+                                int requestCode) {
+        PaymentDataRequest request = PaymentDataRequest.fromJson(paymentDataRequestJson);
+        if (request == null) {
+            throw new IllegalArgumentException("Failed to create payment request");
+        }
+        AutoResolveHelper.resolveTask(getPaymentsClient(environment).loadPaymentData(request), activity, requestCode);
+    }
+
+    @Override
+    public void readPaymentResult(int requestCode, int resultCode, Intent data,
+                                  PaymentLauncher.ResultListener listener) {
+        switch (resultCode) {
+            case Activity.RESULT_OK:
+                if (data == null) {
+                    listener.onFailed(requestCode, "Intent data is null");
+                    return;
+                }
+                PaymentData paymentData = PaymentData.getFromIntent(data);
+                if (paymentData == null) {
+                    listener.onFailed(requestCode, "Payment data is null");
+                    return;
+                }
+                String paymentInfo = paymentData.toJson();
+                if (paymentInfo == null) {
+                    listener.onFailed(requestCode, "Empty payment data");
+                    return;
+                }
+                listener.onGooglePayResult(requestCode, paymentInfo);
+                return;
+            case Activity.RESULT_CANCELED:
+                listener.onCancelled(requestCode);
+                return;
+            case AutoResolveHelper.RESULT_ERROR:
+                if (data != null) {
+                    com.google.android.gms.common.api.Status status = AutoResolveHelper.getStatusFromIntent(data);
+                    listener.onFailed(requestCode, status != null ? status.getStatusMessage() : "Unknown error");
+                } else {
+                    listener.onFailed(requestCode, "Error occurred");
+                }
+                return;
+            default:
+                listener.onFailed(requestCode, "Unknown result code: " + resultCode);
+        }
+    }
+}
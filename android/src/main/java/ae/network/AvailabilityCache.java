@@ -0,0 +1,126 @@
+package ae.network;
+
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Remembers the answers of a wallet availability probe for a limited time. Callers asking while
+ * a probe for the same key is still running wait for that probe instead of starting another one.
+ * Fresh answers are returned on the caller's thread; probes run on the given executor, since
+ * building a wallet client on a cold cache can take long enough to hold up the bridge.
+ */
+class AvailabilityCache<K> {
+
+    interface Listener {
+        void onResult(boolean available);
+    }
+
+    interface Probe<K> {
+        /**
+         * Runs the probe and reports the answer once, or null if it could not be determined.
+         * An undetermined answer is reported to waiting callers as unavailable but not cached.
+         */
+        void run(K key, ProbeListener listener);
+    }
+
+    interface ProbeListener {
+        void onResult(Boolean available);
+    }
+
+    private static class Entry {
+        final boolean available;
+        final long timestamp;
+
+        Entry(boolean available, long timestamp) {
+            this.available = available;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private final Probe<K> probe;
+    private final long ttlMillis;
+    private final Executor probeExecutor;
+    // Both guarded by this
+    private final Map<K, Entry> entries = new HashMap<>();
+    private final Map<K, List<Listener>> inFlight = new HashMap<>();
+
+    AvailabilityCache(Probe<K> probe, long ttlMillis, Executor probeExecutor) {
+        this.probe = probe;
+        this.ttlMillis = ttlMillis;
+        this.probeExecutor = probeExecutor;
+    }
+
+    void get(K key, Listener listener) {
+        Boolean cached;
+        synchronized (this) {
+            cached = peek(key);
+            if (cached == null) {
+                List<Listener> waiters = inFlight.get(key);
+                if (waiters != null) {
+                    waiters.add(listener);
+                    return;
+                }
+                waiters = new ArrayList<>();
+                waiters.add(listener);
+                inFlight.put(key, waiters);
+            }
+        }
+        if (cached != null) {
+            listener.onResult(cached);
+            return;
+        }
+        try {
+            probeExecutor.execute(() -> runProbe(key));
+        } catch (RejectedExecutionException e) {
+            // Shut down with the module
+            complete(key, null);
+        }
+    }
+
+    private void runProbe(K key) {
+        try {
+            probe.run(key, available -> complete(key, available));
+        } catch (RuntimeException e) {
+            complete(key, null);
+        }
+    }
+
+    /**
+     * @return the cached answer if it is still fresh, null otherwise
+     */
+    synchronized Boolean peek(K key) {
+        Entry entry = entries.get(key);
+        if (entry == null || SystemClock.elapsedRealtime() - entry.timestamp > ttlMillis) {
+            return null;
+        }
+        return entry.available;
+    }
+
+    synchronized void invalidate() {
+        entries.clear();
+    }
+
+    private void complete(K key, Boolean available) {
+        List<Listener> waiters;
+        synchronized (this) {
+            waiters = inFlight.remove(key);
+            if (waiters == null) {
+                // Probe answered more than once
+                return;
+            }
+            if (available != null) {
+                entries.put(key, new Entry(available, SystemClock.elapsedRealtime()));
+            }
+        }
+        boolean result = available != null && available;
+        for (Listener waiter : waiters) {
+            waiter.onResult(result);
+        }
+    }
+}
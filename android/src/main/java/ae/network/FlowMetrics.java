@@ -0,0 +1,104 @@
+package ae.network;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Latency of each payment flow, measured from the moment the native module receives the call.
+ * Per flow it records how long it took to launch the payment UI and, per outcome, how long it
+ * took until the result was delivered.
+ */
+class FlowMetrics {
+
+    enum Flow {
+        CARD_PAYMENT("cardPayment"),
+        THREE_DS_TWO("threeDSTwo"),
+        SAMSUNG_PAY("samsungPay"),
+        GOOGLE_PAY("googlePay");
+
+        final String key;
+
+        Flow(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final String[] STATUSES = {
+            PaymentResult.STATUS_SUCCESS, PaymentResult.STATUS_FAILED, PaymentResult.STATUS_ABORTED
+    };
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private final LatencyHistogram[] launchLatencies = new LatencyHistogram[Flow.values().length];
+    private final LatencyHistogram[][] resultLatencies = new LatencyHistogram[Flow.values().length][STATUSES.length];
+
+    FlowMetrics() {
+        for (Flow flow : Flow.values()) {
+            launchLatencies[flow.ordinal()] = new LatencyHistogram();
+            for (int status = 0; status < STATUSES.length; status++) {
+                resultLatencies[flow.ordinal()][status] = new LatencyHistogram();
+            }
+        }
+    }
+
+    void recordLaunch(Flow flow, long elapsedNanos) {
+        launchLatencies[flow.ordinal()].record(elapsedNanos / 1000);
+    }
+
+    void recordResult(Flow flow, String status, long elapsedNanos) {
+        int statusIndex = indexOfStatus(status);
+        if (statusIndex >= 0) {
+            resultLatencies[flow.ordinal()][statusIndex].record(elapsedNanos / 1000);
+        }
+    }
+
+    void reset() {
+        for (Flow flow : Flow.values()) {
+            launchLatencies[flow.ordinal()].reset();
+            for (LatencyHistogram histogram : resultLatencies[flow.ordinal()]) {
+                histogram.reset();
+            }
+        }
+    }
+
+    /**
+     * @return e.g. { cardPayment: { launch: { count, p50, p95, p99 }, Success: { ... } } } with
+     * durations in milliseconds. Flows and stages without samples are left out.
+     */
+    WritableMap toWritableMap() {
+        WritableMap metrics = Arguments.createMap();
+        for (Flow flow : Flow.values()) {
+            WritableMap flowMetrics = Arguments.createMap();
+            boolean hasSamples = putHistogram(flowMetrics, "launch", launchLatencies[flow.ordinal()]);
+            for (int status = 0; status < STATUSES.length; status++) {
+                hasSamples |= putHistogram(flowMetrics, STATUSES[status], resultLatencies[flow.ordinal()][status]);
+            }
+            if (hasSamples) {
+                metrics.putMap(flow.key, flowMetrics);
+            }
+        }
+        return metrics;
+    }
+
+    private static boolean putHistogram(WritableMap map, String key, LatencyHistogram histogram) {
+        double[] snapshot = histogram.snapshot(PERCENTILES);
+        if (snapshot[0] == 0) {
+            return false;
+        }
+        WritableMap values = Arguments.createMap();
+        values.putInt("count", (int) snapshot[0]);
+        values.putDouble("p50", snapshot[1]);
+        values.putDouble("p95", snapshot[2]);
+        values.putDouble("p99", snapshot[3]);
+        map.putMap(key, values);
+        return true;
+    }
+
+    private static int indexOfStatus(String status) {
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,108 @@
+package ae.network;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * The parts of a Google Pay PaymentData response the module hands back to JS. It is read with a
+ * streaming parser that only descends into paymentMethodData and skips everything else, so the
+ * large escaped token string is copied once instead of once per JSONObject level.
+ */
+class GooglePayPaymentData {
+
+    private String token;
+    private String cardNetwork;
+    private String cardDetails;
+
+    private GooglePayPaymentData() {
+    }
+
+    /**
+     * @throws IOException if the JSON is malformed or has no tokenizationData.token
+     */
+    static GooglePayPaymentData fromJson(String paymentDataJson) throws IOException {
+        GooglePayPaymentData paymentData = new GooglePayPaymentData();
+        try (JsonReader reader = new JsonReader(new StringReader(paymentDataJson))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if ("paymentMethodData".equals(reader.nextName())) {
+                    paymentData.readPaymentMethodData(reader);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        if (paymentData.token == null) {
+            throw new IOException("No value for token");
+        }
+        return paymentData;
+    }
+
+    private void readPaymentMethodData(JsonReader reader) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "tokenizationData":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if ("token".equals(reader.nextName())) {
+                            token = nextStringOrNull(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "info":
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "cardNetwork":
+                                cardNetwork = nextStringOrNull(reader);
+                                break;
+                            case "cardDetails":
+                                cardDetails = nextStringOrNull(reader);
+                                break;
+                            default:
+                                reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    /**
+     * Card network of the selected card, e.g. VISA or MASTERCARD.
+     */
+    String getCardNetwork() {
+        return cardNetwork;
+    }
+
+    /**
+     * Last four digits of the selected card.
+     */
+    String getCardDetails() {
+        return cardDetails;
+    }
+}
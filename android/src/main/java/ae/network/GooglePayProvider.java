@@ -0,0 +1,28 @@
+package ae.network;
+
+import android.app.Activity;
+import android.content.Intent;
+
+/**
+ * Google Pay integration of the module. It lives in the optional googlepay source set, which
+ * brings in play-services-wallet, and is found at runtime through {@link WalletProviders}; apps
+ * built without it pay nothing for Google Pay.
+ */
+interface GooglePayProvider {
+
+    /**
+     * Runs isReadyToPay for the wallet environment ("TEST" or "PRODUCTION").
+     */
+    void isReadyToPay(String environment, String isReadyToPayRequestJson,
+                      PaymentLauncher.AvailabilityListener listener);
+
+    /**
+     * Opens the payment sheet; its result arrives in onActivityResult with the request code.
+     */
+    void loadPaymentData(Activity activity, String environment, String paymentDataRequestJson, int requestCode);
+
+    /**
+     * Reads the result the payment sheet returned to onActivityResult and reports it.
+     */
+    void readPaymentResult(int requestCode, int resultCode, Intent data, PaymentLauncher.ResultListener listener);
+}
@@ -0,0 +1,156 @@
+package ae.network;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Validated Google Pay configuration with the static part of the PaymentDataRequest already
+ * serialized. A payment only appends its transactionInfo to the precompiled JSON, which the
+ * Google Pay provider turns into the wallet request.
+ */
+class GooglePayRequestTemplate {
+
+    static final String ENVIRONMENT_TEST = "TEST";
+    static final String ENVIRONMENT_PRODUCTION = "PRODUCTION";
+
+    private static volatile String isReadyToPayRequestJson;
+
+    private final String environment;
+    private final String merchantName;
+    private final String merchantId;
+    private final String merchantOrigin;
+    private final String gateway;
+    private final String gatewayMerchantId;
+
+    // Serialized request without the closing brace, ready for the transactionInfo member
+    private final String paymentDataRequestPrefix;
+
+    private GooglePayRequestTemplate(ReadableMap googlePayConfig) throws JSONException {
+        this.environment = getOptionalString(googlePayConfig, "environment", "TEST");
+        this.merchantName = getRequiredString(googlePayConfig, "merchantName", "Merchant name is not found");
+        this.merchantId = getOptionalString(googlePayConfig, "merchantId", null);
+        this.merchantOrigin = getOptionalString(googlePayConfig, "merchantOrigin", null);
+        this.gateway = getRequiredString(googlePayConfig, "gateway", "Gateway is not found");
+        this.gatewayMerchantId = getRequiredString(googlePayConfig, "gatewayMerchantId",
+                "Gateway merchant ID is not found");
+
+        JSONObject paymentDataRequestJson = new JSONObject();
+        paymentDataRequestJson.put("apiVersion", 2);
+        paymentDataRequestJson.put("apiVersionMinor", 0);
+
+        JSONObject merchantInfo = new JSONObject();
+        merchantInfo.put("merchantName", merchantName);
+        if (merchantId != null) {
+            merchantInfo.put("merchantId", merchantId);
+        }
+        if (merchantOrigin != null) {
+            merchantInfo.put("merchantOrigin", merchantOrigin);
+        }
+        paymentDataRequestJson.put("merchantInfo", merchantInfo);
+
+        JSONObject cardPaymentMethod = createCardPaymentMethod();
+        JSONObject tokenizationSpecification = new JSONObject();
+        tokenizationSpecification.put("type", "PAYMENT_GATEWAY");
+        JSONObject tokenizationParameters = new JSONObject();
+        tokenizationParameters.put("gateway", gateway);
+        tokenizationParameters.put("gatewayMerchantId", gatewayMerchantId);
+        tokenizationSpecification.put("parameters", tokenizationParameters);
+        cardPaymentMethod.put("tokenizationSpecification", tokenizationSpecification);
+
+        paymentDataRequestJson.put("allowedPaymentMethods", new JSONArray().put(cardPaymentMethod));
+
+        String serialized = paymentDataRequestJson.toString();
+        this.paymentDataRequestPrefix = serialized.substring(0, serialized.length() - 1);
+    }
+
+    /**
+     * Validates the Google Pay config and precompiles its request.
+     *
+     * @throws IllegalArgumentException if a required field is missing
+     */
+    static GooglePayRequestTemplate compile(ReadableMap googlePayConfig) throws JSONException {
+        return new GooglePayRequestTemplate(googlePayConfig);
+    }
+
+    /**
+     * Whether this template was compiled from a config with the same values, so it can be
+     * reused instead of compiling the config again.
+     */
+    boolean isCompiledFrom(ReadableMap googlePayConfig) {
+        return environment.equals(getOptionalString(googlePayConfig, "environment", "TEST"))
+                && merchantName.equals(getOptionalString(googlePayConfig, "merchantName", null))
+                && equal(merchantId, getOptionalString(googlePayConfig, "merchantId", null))
+                && equal(merchantOrigin, getOptionalString(googlePayConfig, "merchantOrigin", null))
+                && gateway.equals(getOptionalString(googlePayConfig, "gateway", null))
+                && gatewayMerchantId.equals(getOptionalString(googlePayConfig, "gatewayMerchantId", null));
+    }
+
+    String getWalletEnvironment() {
+        return toWalletEnvironment(environment);
+    }
+
+    /**
+     * @return ENVIRONMENT_PRODUCTION or ENVIRONMENT_TEST, which anything else falls back to
+     */
+    static String toWalletEnvironment(String environment) {
+        return ENVIRONMENT_PRODUCTION.equals(environment) ? ENVIRONMENT_PRODUCTION : ENVIRONMENT_TEST;
+    }
+
+    String createPaymentDataRequestJson(String totalPrice, String currencyCode) {
+        return paymentDataRequestPrefix +
+                ",\"transactionInfo\":{\"totalPriceStatus\":\"FINAL\",\"totalPrice\":" +
+                JSONObject.quote(totalPrice) +
+                ",\"currencyCode\":" +
+                JSONObject.quote(currencyCode) +
+                "}}";
+    }
+
+    /**
+     * The isReadyToPay request does not depend on the merchant config, so it is built once.
+     */
+    static String getIsReadyToPayRequestJson() throws JSONException {
+        String requestJson = isReadyToPayRequestJson;
+        if (requestJson == null) {
+            JSONObject request = new JSONObject();
+            request.put("apiVersion", 2);
+            request.put("apiVersionMinor", 0);
+            request.put("allowedPaymentMethods", new JSONArray().put(createCardPaymentMethod()));
+            requestJson = request.toString();
+            isReadyToPayRequestJson = requestJson;
+        }
+        return requestJson;
+    }
+
+    private static JSONObject createCardPaymentMethod() throws JSONException {
+        JSONObject cardPaymentMethod = new JSONObject();
+        cardPaymentMethod.put("type", "CARD");
+
+        JSONObject parameters = new JSONObject();
+        parameters.put("allowedAuthMethods", new JSONArray().put("PAN_ONLY").put("CRYPTOGRAM_3DS"));
+        parameters.put("allowedCardNetworks", new JSONArray().put("VISA").put("MASTERCARD"));
+        cardPaymentMethod.put("parameters", parameters);
+        return cardPaymentMethod;
+    }
+
+    private static String getRequiredString(ReadableMap map, String key, String errorMessage) {
+        String value = getOptionalString(map, key, null);
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException(errorMessage);
+        }
+        return value;
+    }
+
+    private static String getOptionalString(ReadableMap map, String key, String fallback) {
+        if (!map.hasKey(key) || map.isNull(key)) {
+            return fallback;
+        }
+        return map.getString(key);
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,74 @@
+package ae.network;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size log-linear histogram of durations in microseconds. Each power of two is split into
+ * four buckets, so percentiles are reported with at most 25% error. Recording is lock-free and
+ * does not allocate; percentiles are read from a snapshot of the counts.
+ */
+class LatencyHistogram {
+
+    private static final int SUB_BUCKETS = 4;
+    // Covers 0 to 2^32 microseconds (about 71 minutes); longer durations land in the last bucket
+    private static final int BUCKET_COUNT = 32 * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    void record(long micros) {
+        counts.incrementAndGet(bucketOf(micros));
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * @return the number of recorded durations, with the values at the given percentiles (0 to 100)
+     * in milliseconds as {count, p1, p2, ...}
+     */
+    double[] snapshot(double... percentiles) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        double[] values = new double[percentiles.length + 1];
+        values[0] = total;
+        if (total == 0) {
+            return values;
+        }
+        for (int p = 0; p < percentiles.length; p++) {
+            long rank = Math.max(1, (long) Math.ceil(percentiles[p] / 100 * total));
+            long seen = 0;
+            int bucket = 0;
+            while (bucket < BUCKET_COUNT - 1 && seen + snapshot[bucket] < rank) {
+                seen += snapshot[bucket];
+                bucket++;
+            }
+            values[p + 1] = upperBoundOf(bucket) / 1000.0;
+        }
+        return values;
+    }
+
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return micros < 0 ? 0 : (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKET_COUNT - 1, (exponent - 1) * SUB_BUCKETS + subBucket);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + 1;
+        int subBucket = bucket % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - 2)) - 1;
+    }
+}
@@ -2,159 +2,308 @@ package ae.network;
 
 import android.app.Activity;
 import android.content.Intent;
-import android.net.Uri;
 import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
 
 import com.facebook.react.bridge.ActivityEventListener;
 import com.facebook.react.bridge.BaseActivityEventListener;
+import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.Promise;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.modules.network.OkHttpClientProvider;
 
-import org.jetbrains.annotations.NotNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import java.util.List;
-import java.util.Objects;
-
-import com.google.android.gms.common.api.ApiException;
-import com.google.android.gms.tasks.Task;
-import com.google.android.gms.wallet.AutoResolveHelper;
-import com.google.android.gms.wallet.IsReadyToPayRequest;
-import com.google.android.gms.wallet.PaymentData;
-import com.google.android.gms.wallet.PaymentDataRequest;
-import com.google.android.gms.wallet.PaymentsClient;
-import com.google.android.gms.wallet.Wallet;
-import com.google.android.gms.wallet.WalletConstants;
-
-import org.json.JSONArray;
+import okhttp3.Request;
 import org.json.JSONException;
-import org.json.JSONObject;
 
-import payment.sdk.android.PaymentClient;
 import payment.sdk.android.SDKConfig;
 import payment.sdk.android.core.Order;
-import payment.sdk.android.cardpayment.CardPaymentData;
 import payment.sdk.android.cardpayment.CardPaymentRequest;
 import payment.sdk.android.core.PaymentResponse;
-import payment.sdk.android.samsungpay.SamsungPayResponse;
 
-public class NiSdkModule extends ReactContextBaseJavaModule implements SamsungPayResponse {
+public class NiSdkModule extends NiSdkSpec {
+
+    static final String NAME = "NiSdk";
+    // Keep in sync with the version in package.json
+    static final String SDK_VERSION = "3.1.2";
 
     private final ReactApplicationContext reactContext;
     private final int CARD_ACTIVITY_REQUEST_CODE = 00765;
     private final int EXECUTE_THREE_DS_TWO_ACTIVITY_REQUEST_CODE = 00654;
     private final int GOOGLE_PAY_REQUEST_CODE = 888;
-    private Callback cardPayResponseCallback;
-    private Callback samsungPayResponseCallback;
-    private Callback executeThreeDSTwoCallback;
-    private Callback isSamsungPayEnabledCallback;
-    private Callback googlePayResponseCallback;
-    private PaymentsClient paymentsClient;
+    private static final long AVAILABILITY_TTL_MILLIS = 5 * 60 * 1000;
+    private static final int PREPARED_PAYMENTS_CAPACITY = 16;
+    private static final long DEFAULT_POLL_INITIAL_DELAY_MILLIS = 2000;
+    private static final long DEFAULT_POLL_MAX_DELAY_MILLIS = 30 * 1000;
+    private static final int DEFAULT_MAX_POLLS = 20;
+    private static final String JOURNAL_FILE_NAME = "ni-sdk-payment-journal";
+    // Request code journaled for flows that do not finish in onActivityResult
+    private static final int NO_REQUEST_CODE = 0;
+    // Operation IDs start at 1
+    private static final int NO_OPERATION = 0;
+    private static final String RELEASED_MESSAGE = "The module has been released with its React instance";
+    // Flows waiting for a result, so overlapping calls cannot overwrite each other
+    private final PendingOperations<PaymentResultListener> pendingPayments = new PendingOperations<>();
+    // Starts the payment UIs of the SDKs, or a stand-in passed to NiSdkPackage
+    private final PaymentLauncher paymentLauncher;
+    private volatile GooglePayRequestTemplate googlePayRequestTemplate;
+    // Parses orders and builds requests and clients, so payment calls do not queue up behind
+    // other modules on the shared native-modules thread. Only activity launches run on the UI thread.
+    private final ExecutorService paymentExecutor = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "NiSdkPayments");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Builds the wallet clients of the availability probes off the bridge and UI threads. The
+    // wallet SDKs deliver their callbacks through Handlers, so the thread needs a Looper.
+    private final HandlerThread walletThread = startWalletThread();
+    private final Handler walletHandler = new Handler(walletThread.getLooper());
+    // Wallet availability answers, keyed by wallet environment and Samsung Pay service ID. Cache
+    // misses run their probe on the wallet thread.
+    private final AvailabilityCache<String> googlePayAvailability =
+            new AvailabilityCache<>(this::probeGooglePay, AVAILABILITY_TTL_MILLIS, this::runOnWalletThread);
+    private final AvailabilityCache<String> samsungPayAvailability =
+            new AvailabilityCache<>(this::probeSamsungPay, AVAILABILITY_TTL_MILLIS, this::runOnWalletThread);
+    // Card payment requests built by prepareCardPayment, so launching and retrying skip parsing
+    private final PreparedPaymentCache<PreparedCardPayment> preparedCardPayments =
+            new PreparedPaymentCache<>(PREPARED_PAYMENTS_CAPACITY);
+    private final FlowMetrics flowMetrics = new FlowMetrics();
+    private final PaymentEventEmitter paymentEvents;
+    private volatile OrderClient orderClient;
+    private volatile OrderStatusPoller orderStatusPoller;
+    private final Preconnector preconnector = new Preconnector();
+    // Payments in flight, kept on disk so they can be reported after the process was killed
+    private final PaymentJournal paymentJournal;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private static final class PreparedCardPayment {
+        final CardPaymentRequest cardPaymentRequest;
+        final String orderReference;
+        final String paymentReference;
+
+        PreparedCardPayment(CardPaymentRequest cardPaymentRequest, String orderReference, String paymentReference) {
+            this.cardPaymentRequest = cardPaymentRequest;
+            this.orderReference = orderReference;
+            this.paymentReference = paymentReference;
+        }
+    }
 
     private final ActivityEventListener cardActivityEventListener = new BaseActivityEventListener() {
 
         @Override
         public void onActivityResult(Activity activity, int requestCode, int resultCode, Intent data) {
-            if ((requestCode == CARD_ACTIVITY_REQUEST_CODE && cardPayResponseCallback != null) ||
-                    (requestCode == EXECUTE_THREE_DS_TWO_ACTIVITY_REQUEST_CODE && executeThreeDSTwoCallback != null)) {
-                Callback cb = requestCode == CARD_ACTIVITY_REQUEST_CODE ? cardPayResponseCallback : executeThreeDSTwoCallback;
+            if (requestCode == CARD_ACTIVITY_REQUEST_CODE || requestCode == EXECUTE_THREE_DS_TWO_ACTIVITY_REQUEST_CODE) {
                 // This is the card payment intent
-                if (resultCode == Activity.RESULT_OK) {
-                    CardPaymentData cardPaymentData = CardPaymentData.getFromIntent(data);
-                    switch (cardPaymentData.getCode()) {
-                        case CardPaymentData.STATUS_PAYMENT_AUTHORIZED:
-                        case CardPaymentData.STATUS_PAYMENT_PURCHASED:
-                        case CardPaymentData.STATUS_PAYMENT_CAPTURED:
-                            // Payment succeeded
-                            cb.invoke("Success");
-                            break;
-                        case CardPaymentData.STATUS_PAYMENT_FAILED:
-                        case CardPaymentData.STATUS_GENERIC_ERROR:
-                        default:
-                            // Unknown error
-                            cb.invoke("Failed");
-                            break;
-                    }
-                } else if (resultCode == Activity.RESULT_CANCELED) {
-                    // User aborted
-                    cb.invoke("Aborted");
-                }
-            } else if (requestCode == GOOGLE_PAY_REQUEST_CODE && googlePayResponseCallback != null) {
-                Callback cb = googlePayResponseCallback;
-                switch (resultCode) {
-                    case Activity.RESULT_OK:
-                        if (data != null) {
-                            PaymentData paymentData = PaymentData.getFromIntent(data);
-                            if (paymentData != null) {
-                                try {
-                                    String paymentInfo = paymentData.toJson();
-                                    if (paymentInfo != null) {
-                                        JSONObject paymentJson = new JSONObject(paymentInfo);
-                                        JSONObject paymentMethodData = paymentJson.getJSONObject("paymentMethodData");
-                                        JSONObject tokenizationData = paymentMethodData.getJSONObject("tokenizationData");
-                                        String token = tokenizationData.getString("token");
-                                        cb.invoke("Success", token);
-                                    } else {
-                                        cb.invoke("Failed", "Empty payment data");
-                                    }
-                                } catch (JSONException e) {
-                                    cb.invoke("Failed", "Failed to parse payment data: " + e.getMessage());
-                                }
-                            } else {
-                                cb.invoke("Failed", "Payment data is null");
-                            }
-                        } else {
-                            cb.invoke("Failed", "Intent data is null");
-                        }
-                        break;
-                    case Activity.RESULT_CANCELED:
-                        cb.invoke("Aborted", "User cancelled");
-                        break;
-                    case AutoResolveHelper.RESULT_ERROR:
-                        if (data != null) {
-                            com.google.android.gms.common.api.Status status = AutoResolveHelper.getStatusFromIntent(data);
-                            cb.invoke("Failed", status != null ? status.getStatusMessage() : "Unknown error");
-                        } else {
-                            cb.invoke("Failed", "Error occurred");
-                        }
-                        break;
-                    default:
-                        cb.invoke("Failed", "Unknown result code: " + resultCode);
-                        break;
-                }
+                paymentLauncher.onCardPaymentActivityResult(requestCode, resultCode, data);
+            } else if (requestCode == GOOGLE_PAY_REQUEST_CODE) {
+                paymentLauncher.onGooglePayActivityResult(requestCode, resultCode, data);
+            }
+        }
+    };
+
+    private final PaymentLauncher.ResultListener launcherResultListener = new PaymentLauncher.ResultListener() {
+        @Override
+        public void onCardPaymentResult(int requestCode, int statusCode, String reason) {
+            deliverActivityResult(requestCode, PaymentResult.fromCardPaymentStatus(statusCode, reason));
+        }
+
+        @Override
+        public void onGooglePayResult(int requestCode, String paymentDataJson) {
+            deliverActivityResult(requestCode, getGooglePayResult(paymentDataJson));
+        }
+
+        @Override
+        public void onCancelled(int requestCode) {
+            // User aborted
+            deliverActivityResult(requestCode, PaymentResult.aborted(PaymentResult.ERROR_USER_CANCELLED,
+                    requestCode == GOOGLE_PAY_REQUEST_CODE ? "User cancelled" : null));
+        }
+
+        @Override
+        public void onFailed(int requestCode, String message) {
+            deliverActivityResult(requestCode, PaymentResult.failed(requestCode == GOOGLE_PAY_REQUEST_CODE ?
+                    PaymentResult.ERROR_WALLET : PaymentResult.ERROR_PAYMENT_FAILED, message));
+        }
+    };
+
+    /**
+     * Completes the flow waiting for the result. Without one the flow was started by a process
+     * that has since been killed, so the result is kept with its journal entry for
+     * getPendingPayments.
+     */
+    private void deliverActivityResult(int requestCode, PaymentResult result) {
+        PaymentResultListener listener = pendingPayments.takeActivityResult(requestCode);
+        if (listener != null) {
+            listener.returnedToApp();
+            listener.complete(result);
+        } else {
+            paymentJournal.execute(() -> paymentJournal.attachLateResult(requestCode, result));
+        }
+    }
+
+    private static PaymentResult getGooglePayResult(String paymentDataJson) {
+        try {
+            GooglePayPaymentData googlePayPaymentData = GooglePayPaymentData.fromJson(paymentDataJson);
+            return PaymentResult.success().token(googlePayPaymentData.getToken(),
+                    googlePayPaymentData.getCardNetwork(), googlePayPaymentData.getCardDetails());
+        } catch (IOException | IllegalStateException e) {
+            return PaymentResult.failed(PaymentResult.ERROR_PARSE,
+                    "Failed to parse payment data: " + e.getMessage());
+        }
+    }
+
+    private final LifecycleEventListener lifecycleEventListener = new LifecycleEventListener() {
+        @Override
+        public void onHostResume() {
+            // Wallet setup may have changed while the app was in the background
+            googlePayAvailability.invalidate();
+            samsungPayAvailability.invalidate();
+            // Payments may have completed while the app was in the background
+            OrderStatusPoller poller = orderStatusPoller;
+            if (poller != null) {
+                poller.pollAllNow();
             }
         }
+
+        @Override
+        public void onHostPause() {
+        }
+
+        @Override
+        public void onHostDestroy() {
+            paymentLauncher.releaseClients();
+            // A result due to the destroyed activity only arrives if it is recreated; until then
+            // the request codes must not block the next payment for good
+            pendingPayments.releaseActivityResults();
+        }
     };
 
     public NiSdkModule(ReactApplicationContext reactContext) {
+        this(reactContext, new SdkPaymentLauncher(reactContext));
+    }
+
+    NiSdkModule(ReactApplicationContext reactContext, PaymentLauncher paymentLauncher) {
         super(reactContext);
         this.reactContext = reactContext;
+        this.paymentLauncher = paymentLauncher;
+        paymentLauncher.setResultListener(launcherResultListener);
+        this.paymentEvents = new PaymentEventEmitter(reactContext);
+        this.paymentJournal = new PaymentJournal(new File(reactContext.getFilesDir(), JOURNAL_FILE_NAME));
+        paymentJournal.load();
         reactContext.addActivityEventListener(cardActivityEventListener);
+        reactContext.addLifecycleEventListener(lifecycleEventListener);
     }
 
     @Override
     public String getName() {
-        return "NiSdk";
+        return NAME;
+    }
+
+    // Not annotated with @Override: React Native added invalidate() to modules in 0.65
+    public void invalidate() {
+        releaseResources();
+    }
+
+    /**
+     * Only called by React Native versions that predate invalidate().
+     */
+    @Override
+    public void onCatalystInstanceDestroy() {
+        releaseResources();
+    }
+
+    /**
+     * Lets go of everything the module holds once its React instance is torn down, e.g. on a
+     * reload: the listeners registered with the context, the worker threads and the clients and
+     * requests cached for later payments.
+     */
+    private void releaseResources() {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        reactContext.removeActivityEventListener(cardActivityEventListener);
+        reactContext.removeLifecycleEventListener(lifecycleEventListener);
+        // Their results can no longer reach JS; the journal keeps them for the next instance
+        pendingPayments.clear();
+        paymentExecutor.shutdownNow();
+        walletThread.quitSafely();
+        preconnector.shutdown();
+        OrderStatusPoller poller;
+        synchronized (this) {
+            poller = orderStatusPoller;
+            orderStatusPoller = null;
+        }
+        if (poller != null) {
+            poller.shutdown();
+        }
+        paymentJournal.shutdown();
+        paymentLauncher.setResultListener(null);
+        paymentLauncher.releaseClients();
+        preparedCardPayments.clear();
+        googlePayAvailability.invalidate();
+        samsungPayAvailability.invalidate();
+        googlePayRequestTemplate = null;
+    }
+
+    private static WritableMap createDeviceInfo() {
+        String manufacturer = Build.MANUFACTURER;
+        String model = Build.MODEL;
+        int osVersion = Build.VERSION.SDK_INT;
+
+        WritableMap deviceInfo = Arguments.createMap();
+        deviceInfo.putString("manufacturer", manufacturer);
+        deviceInfo.putString("model", model);
+        deviceInfo.putInt("osVersion", osVersion);
+        deviceInfo.putString("platform", "android");
+        return deviceInfo;
+    }
+
+    /**
+     * Values that never change while the process runs, read by JS once without a bridge call.
+     */
+    @Override
+    protected Map<String, Object> getTypedExportedConstants() {
+        Map<String, Object> deviceInfo = new HashMap<>();
+        deviceInfo.put("manufacturer", Build.MANUFACTURER);
+        deviceInfo.put("model", Build.MODEL);
+        deviceInfo.put("osVersion", Build.VERSION.SDK_INT);
+        deviceInfo.put("platform", "android");
+
+        // Whether the wallet integrations are bundled with the app; whether the device can pay
+        // with them is answered by isGooglePaySupported / isSamsungPayEnabled.
+        Map<String, Object> features = new HashMap<>();
+        features.put("googlePay", WalletProviders.isAvailable(WalletProviders.GOOGLE_PAY_PROVIDER_CLASS));
+        features.put("samsungPay", WalletProviders.isAvailable(WalletProviders.SAMSUNG_PAY_PROVIDER_CLASS));
+
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("deviceInfo", deviceInfo);
+        constants.put("sdkVersion", SDK_VERSION);
+        constants.put("features", features);
+        return constants;
     }
 
     @ReactMethod
     public void getDeviceInfo(Callback callback) {
         try {
-            String manufacturer = Build.MANUFACTURER;
-            String model = Build.MODEL;
-            int osVersion = Build.VERSION.SDK_INT;
-            
-            WritableMap deviceInfo = Arguments.createMap();
-            deviceInfo.putString("manufacturer", manufacturer);
-            deviceInfo.putString("model", model);
-            deviceInfo.putInt("osVersion", osVersion);
-            deviceInfo.putString("platform", "android");
-            
-            callback.invoke(deviceInfo);
+            callback.invoke(createDeviceInfo());
         } catch (Exception e) {
             WritableMap error = Arguments.createMap();
             error.putString("error", e.getMessage());
@@ -162,225 +311,786 @@ public class NiSdkModule extends ReactContextBaseJavaModule implements SamsungPa
         }
     }
 
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getDeviceInfoSync() {
+        return createDeviceInfo();
+    }
+
+    /**
+     * Wallet availability answers already known natively, without running any probe. Google Pay
+     * readiness is keyed by environment and only present once warmUp or isGooglePaySupported
+     * has completed for that environment.
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getCachedWalletAvailability() {
+        WritableMap googlePay = Arguments.createMap();
+        Boolean testReadiness = googlePayAvailability.peek(GooglePayRequestTemplate.ENVIRONMENT_TEST);
+        if (testReadiness != null) {
+            googlePay.putBoolean("TEST", testReadiness);
+        }
+        Boolean productionReadiness = googlePayAvailability.peek(GooglePayRequestTemplate.ENVIRONMENT_PRODUCTION);
+        if (productionReadiness != null) {
+            googlePay.putBoolean("PRODUCTION", productionReadiness);
+        }
+        WritableMap availability = Arguments.createMap();
+        availability.putMap("googlePay", googlePay);
+        return availability;
+    }
+
+    /**
+     * Latency percentiles of the payment flows since the module was created or metrics were last
+     * reset, in milliseconds from the moment the call reached the native side, e.g.
+     * { cardPayment: { launch: { count, p50, p95, p99 }, Success: { ... }, Aborted: { ... } } }.
+     */
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getMetrics() {
+        return flowMetrics.toWritableMap();
+    }
+
+    @ReactMethod
+    public void resetMetrics() {
+        flowMetrics.reset();
+    }
+
+    /**
+     * Called by NativeEventEmitter when JS subscribes to the payment events.
+     */
+    @ReactMethod
+    public void addListener(String eventName) {
+        paymentEvents.addListener();
+    }
+
+    @ReactMethod
+    public void removeListeners(double count) {
+        paymentEvents.removeListeners((int) count);
+    }
+
     @ReactMethod
     public void initiateCardPaymentUI(ReadableMap orderResponse, Callback cardPayResponseCallback) {
-        PaymentClient paymentClient = new PaymentClient(Objects.requireNonNull(this.getCurrentActivity()), "");
-        ReadableMap links = orderResponse.getMap("_links");
-        String paymentAuthorizationLink = links.getMap("payment-authorization").getString("href");
-        String paymentLink = links.getMap("payment").getString("href");
-        Uri uri = Uri.parse(paymentLink);
-        String authCode = uri.getQueryParameter("code");
-        this.cardPayResponseCallback = cardPayResponseCallback;
-
-        CardPaymentRequest cardPaymentRequest = new CardPaymentRequest
-                .Builder()
-                .gatewayUrl(paymentAuthorizationLink)
-                .code(authCode)
-                .build();
-        paymentClient.launchCardPayment(cardPaymentRequest, CARD_ACTIVITY_REQUEST_CODE);
+        launchCardPayment(orderResponse, PaymentResultListener.forCallback(cardPayResponseCallback,
+                Utils.getOptionalString(orderResponse, "reference")));
     }
 
+    /**
+     * Promise variant of initiateCardPaymentUI. Resolves with the result map for every outcome.
+     */
     @ReactMethod
-    public void configureSDK(ReadableMap config) {
-        Boolean shouldShowOrderAmount = config.getBoolean("shouldShowOrderAmount");
-        SDKConfig.INSTANCE.shouldShowOrderAmount(shouldShowOrderAmount);
+    public void startCardPayment(ReadableMap orderResponse, Promise promise) {
+        launchCardPayment(orderResponse, PaymentResultListener.forPromise(promise,
+                Utils.getOptionalString(orderResponse, "reference")));
     }
 
+    private void launchCardPayment(ReadableMap orderResponse, PaymentResultListener listener) {
+        track(listener, FlowMetrics.Flow.CARD_PAYMENT);
+        executeFlow(listener, () -> {
+            CardPaymentRequest cardPaymentRequest;
+            try {
+                cardPaymentRequest = Utils.constructCardPaymentRequestFromReadableMap(orderResponse);
+                listener.setPaymentReference(Utils.getPaymentReference(orderResponse));
+            } catch (RuntimeException e) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_INVALID_ORDER,
+                        "Order has no payment links: " + e.getMessage()));
+                return;
+            }
+            launchCardPaymentRequest(cardPaymentRequest, listener);
+        });
+    }
+
+    /**
+     * Variant of startCardPayment taking the order as a JSON string. Only the fields the payment
+     * needs are read, with a streaming parser on the payment executor, so the order does not have
+     * to be converted into a ReadableMap.
+     */
     @ReactMethod
-    public void executeThreeDSTwo(ReadableMap paymentResponseMap, Callback executeThreeDSTwoCallback) {
-        this.executeThreeDSTwoCallback = executeThreeDSTwoCallback;
-        PaymentClient paymentClient = new PaymentClient(Objects.requireNonNull(this.getCurrentActivity()), "");
-        PaymentResponse paymentResponse = Utils.buildPaymentResponseFromReadableMap(paymentResponseMap);
-        paymentClient.executeThreeDS(paymentResponse, EXECUTE_THREE_DS_TWO_ACTIVITY_REQUEST_CODE);
+    public void startCardPaymentWithJson(String orderJson, Promise promise) {
+        PaymentResultListener listener = PaymentResultListener.forPromise(promise, null);
+        track(listener, FlowMetrics.Flow.CARD_PAYMENT);
+        executeFlow(listener, () -> {
+            CardPaymentRequest cardPaymentRequest;
+            try {
+                OrderProjection order = OrderProjection.fromJson(orderJson);
+                listener.setOrderReference(order.getReference());
+                listener.setPaymentReference(order.getPaymentReference());
+                cardPaymentRequest = Utils.constructCardPaymentRequest(
+                        order.getPaymentUrl(), order.getPaymentAuthorizationUrl());
+            } catch (IOException | RuntimeException e) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_INVALID_ORDER, "Invalid order: " + e.getMessage()));
+                return;
+            }
+            launchCardPaymentRequest(cardPaymentRequest, listener);
+        });
+    }
+
+    private void launchCardPaymentRequest(CardPaymentRequest cardPaymentRequest, PaymentResultListener listener) {
+        launchOnUiThread(listener, currentActivity -> {
+            int operationId = bindActivityOperation(CARD_ACTIVITY_REQUEST_CODE, listener);
+            if (operationId == NO_OPERATION) {
+                return;
+            }
+            try {
+                paymentLauncher.launchCardPayment(currentActivity, cardPaymentRequest, CARD_ACTIVITY_REQUEST_CODE);
+                listener.launched(PaymentEventEmitter.ACTIVITY_LAUNCHED);
+            } catch (RuntimeException e) {
+                failActivityOperation(CARD_ACTIVITY_REQUEST_CODE, operationId,
+                        PaymentResult.ERROR_PAYMENT_FAILED, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Starts recording the flow's metrics and events. Its operation ID is assigned here, so that
+     * every event, also the result of a flow failing before it is registered, carries it.
+     */
+    private void track(PaymentResultListener listener, FlowMetrics.Flow flow) {
+        listener.track(flowMetrics, paymentEvents, flow, pendingPayments.newOperationId());
+    }
+
+    /**
+     * Runs the work of a payment flow on the payment executor, or fails the flow if the module
+     * has been released.
+     */
+    private void executeFlow(PaymentResultListener listener, Runnable task) {
+        try {
+            paymentExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            failReleased(listener);
+        }
+    }
+
+    /**
+     * Runs the task on the payment executor, or rejects the promise if the module has been
+     * released.
+     */
+    private void execute(Promise promise, Runnable task) {
+        try {
+            paymentExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            promise.reject(PaymentResult.ERROR_RELEASED, RELEASED_MESSAGE);
+        }
+    }
+
+    private static void failReleased(PaymentResultListener listener) {
+        listener.complete(PaymentResult.failed(PaymentResult.ERROR_RELEASED, RELEASED_MESSAGE));
+    }
+
+    private interface ActivityLauncher {
+        void launch(Activity currentActivity);
+    }
+
+    /**
+     * Starts the payment UI from the main thread, where only the launch itself runs; parsing and
+     * request building happen on the payment executor beforehand.
+     */
+    private void launchOnUiThread(PaymentResultListener listener, ActivityLauncher launcher) {
+        UiThreadUtil.runOnUiThread(() -> {
+            if (released.get()) {
+                failReleased(listener);
+                return;
+            }
+            Activity currentActivity = this.getCurrentActivity();
+            if (currentActivity == null) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_ACTIVITY_UNAVAILABLE, "Activity is null"));
+                return;
+            }
+            launcher.launch(currentActivity);
+        });
     }
 
+    /**
+     * Validates the order and builds its card payment request ahead of time, e.g. as soon as the
+     * order is created. Resolves with a handle for launchPreparedPayment; the handle can be
+     * launched again to retry after a failed or aborted payment.
+     */
     @ReactMethod
-    public void initiateSamsungPay(ReadableMap orderResponse, String merchantName, String serviceId, Callback samsungPayResponseCallback) {
-        PaymentClient paymentClient = new PaymentClient(Objects.requireNonNull(this.getCurrentActivity()), serviceId);
-        Order order = Utils.constructOrderFromReadableMap(orderResponse);
-        this.samsungPayResponseCallback = samsungPayResponseCallback;
-        paymentClient.launchSamsungPay(order, merchantName, this);
-    }
-
-    private final PaymentClient.SupportedPaymentTypesListener supportedPaymentTypesListeners =
-            new PaymentClient.SupportedPaymentTypesListener() {
-                @Override
-                public void onReady(@NotNull List<? extends PaymentClient.PaymentType> list) {
-                    boolean samsungPayEnabled = false;
-                    for (PaymentClient.PaymentType type : list) {
-                        if (type == PaymentClient.PaymentType.SAMSUNG_PAY) {
-                            samsungPayEnabled = true;
-                        }
-                    }
-                    isSamsungPayEnabledCallback.invoke(samsungPayEnabled);
-                }
-            };
+    public void prepareCardPayment(ReadableMap orderResponse, Promise promise) {
+        execute(promise, () -> {
+            try {
+                CardPaymentRequest cardPaymentRequest = Utils.constructCardPaymentRequestFromReadableMap(orderResponse);
+                promise.resolve(preparedCardPayments.put(new PreparedCardPayment(cardPaymentRequest,
+                        Utils.getOptionalString(orderResponse, "reference"), Utils.getPaymentReference(orderResponse))));
+            } catch (RuntimeException e) {
+                promise.reject(PaymentResult.ERROR_INVALID_ORDER, "Order has no payment links: " + e.getMessage());
+            }
+        });
+    }
 
+    /**
+     * Variant of prepareCardPayment taking the order as a JSON string.
+     */
     @ReactMethod
-    public void isSamsungPayEnabled(String serviceId, Callback isSamsungPayEnabledCallback) {
-        PaymentClient paymentClient = new PaymentClient(Objects.requireNonNull(this.getCurrentActivity()), serviceId);
-        this.isSamsungPayEnabledCallback = isSamsungPayEnabledCallback;
-        paymentClient.getSupportedPaymentMethods(supportedPaymentTypesListeners);
+    public void prepareCardPaymentWithJson(String orderJson, Promise promise) {
+        execute(promise, () -> {
+            try {
+                OrderProjection order = OrderProjection.fromJson(orderJson);
+                CardPaymentRequest cardPaymentRequest = Utils.constructCardPaymentRequest(
+                        order.getPaymentUrl(), order.getPaymentAuthorizationUrl());
+                promise.resolve(preparedCardPayments.put(new PreparedCardPayment(
+                        cardPaymentRequest, order.getReference(), order.getPaymentReference())));
+            } catch (IOException | RuntimeException e) {
+                promise.reject(PaymentResult.ERROR_INVALID_ORDER, "Invalid order: " + e.getMessage());
+            }
+        });
     }
 
-    @Override
-    public void onFailure(@NotNull String s) {
-        if (this.samsungPayResponseCallback != null) {
-            this.samsungPayResponseCallback.invoke("Failed", s);
+    /**
+     * Launches the card payment prepared by prepareCardPayment. Resolves with the result map for
+     * every outcome, like startCardPayment.
+     */
+    @ReactMethod
+    public void launchPreparedPayment(String handle, Promise promise) {
+        PreparedCardPayment preparedPayment = preparedCardPayments.get(handle);
+        PaymentResultListener listener = PaymentResultListener.forPromise(promise,
+                preparedPayment != null ? preparedPayment.orderReference : null);
+        track(listener, FlowMetrics.Flow.CARD_PAYMENT);
+        if (preparedPayment == null) {
+            listener.complete(PaymentResult.failed(PaymentResult.ERROR_HANDLE_EXPIRED,
+                    "Prepared payment is no longer available, prepare it again"));
+            return;
         }
+        listener.setPaymentReference(preparedPayment.paymentReference);
+        launchCardPaymentRequest(preparedPayment.cardPaymentRequest, listener);
     }
 
-    @Override
-    public void onSuccess() {
-        if (this.samsungPayResponseCallback != null) {
-            this.samsungPayResponseCallback.invoke("Success");
+    /**
+     * Creates or fetches an order with an HTTP request made natively, e.g. to your backend's
+     * create-order endpoint, and prepares its card payment without the order crossing the bridge.
+     * Request: { url, method, headers, body }. Resolves with { handle, reference }, where the
+     * handle is passed to launchPreparedPayment; rejects with NETWORK_ERROR, HTTP_ERROR,
+     * PARSE_ERROR or INVALID_ORDER.
+     */
+    @ReactMethod
+    public void fetchOrder(ReadableMap request, Promise promise) {
+        if (released.get()) {
+            promise.reject(PaymentResult.ERROR_RELEASED, RELEASED_MESSAGE);
+            return;
+        }
+        OrderClient.Listener listener = new OrderClient.Listener() {
+            @Override
+            public void onOrder(OrderProjection order) {
+                CardPaymentRequest cardPaymentRequest;
+                try {
+                    cardPaymentRequest = Utils.constructCardPaymentRequest(
+                            order.getPaymentUrl(), order.getPaymentAuthorizationUrl());
+                } catch (RuntimeException e) {
+                    promise.reject(PaymentResult.ERROR_INVALID_ORDER, "Order has no payment links: " + e.getMessage());
+                    return;
+                }
+                preconnector.preconnect(Collections.singletonList(order.getPaymentAuthorizationUrl()));
+                WritableMap result = Arguments.createMap();
+                result.putString("handle", preparedCardPayments.put(
+                        new PreparedCardPayment(cardPaymentRequest, order.getReference(), order.getPaymentReference())));
+                result.putString("reference", order.getReference());
+                promise.resolve(result);
+            }
+
+            @Override
+            public void onError(String errorCode, String errorMessage) {
+                promise.reject(errorCode, errorMessage);
+            }
+        };
+        try {
+            getOrderClient().fetch(request, listener);
+        } catch (IllegalArgumentException e) {
+            promise.reject(PaymentResult.ERROR_INVALID_CONFIG, "Invalid request: " + e.getMessage());
         }
     }
 
-    private PaymentsClient createPaymentsClient(int environment) {
-        Wallet.WalletOptions walletOptions = new Wallet.WalletOptions.Builder()
-                .setEnvironment(environment)
-                .build();
-        return Wallet.getPaymentsClient(this.reactContext, walletOptions);
+    private OrderClient getOrderClient() {
+        OrderClient client = this.orderClient;
+        if (client == null) {
+            client = new OrderClient(OkHttpClientProvider.getOkHttpClient());
+            this.orderClient = client;
+        }
+        return client;
     }
 
+    /**
+     * Warms up connections to the gateway API hosts of an order or payment response, e.g. as soon
+     * as the order is created, so the payment-sdk's first API calls for the card payment and 3DS2
+     * authentication skip DNS lookup and the TLS handshake. 3DS pages shown in a WebView are not
+     * affected.
+     */
     @ReactMethod
-    public void isGooglePaySupported(ReadableMap googlePayConfig, Callback callback) {
+    public void preconnect(ReadableMap orderOrPaymentResponse) {
+        preconnector.preconnect(Utils.getConnectionUrls(orderOrPaymentResponse));
+    }
+
+    /**
+     * Polls the status of an order natively and emits an orderStatusChanged payment event when
+     * its payment state changes, until it reaches a final state. Request: { url, headers } of
+     * the order status endpoint; options: { initialDelayMs, maxDelayMs, maxPolls }, all positive
+     * and maxDelayMs not below initialDelayMs. Resolves once polling has started; rejects with
+     * INVALID_CONFIG otherwise.
+     */
+    @ReactMethod
+    public void watchOrderStatus(String orderReference, ReadableMap request, ReadableMap options, Promise promise) {
+        long initialDelayMillis = DEFAULT_POLL_INITIAL_DELAY_MILLIS;
+        long maxDelayMillis = DEFAULT_POLL_MAX_DELAY_MILLIS;
+        int maxPolls = DEFAULT_MAX_POLLS;
+        if (options != null) {
+            if (options.hasKey("initialDelayMs")) {
+                initialDelayMillis = (long) options.getDouble("initialDelayMs");
+            }
+            if (options.hasKey("maxDelayMs")) {
+                maxDelayMillis = (long) options.getDouble("maxDelayMs");
+            }
+            if (options.hasKey("maxPolls")) {
+                maxPolls = options.getInt("maxPolls");
+            }
+        }
+        OrderStatusPoller poller = getOrderStatusPoller();
+        if (poller == null) {
+            promise.reject(PaymentResult.ERROR_RELEASED, RELEASED_MESSAGE);
+            return;
+        }
+        Request httpRequest;
         try {
-            if (googlePayConfig == null) {
-                callback.invoke(false);
-                return;
+            httpRequest = OrderClient.toHttpRequest(request);
+        } catch (IllegalArgumentException e) {
+            promise.reject(PaymentResult.ERROR_INVALID_CONFIG, "Invalid request: " + e.getMessage());
+            return;
+        }
+        try {
+            poller.watch(orderReference, httpRequest, initialDelayMillis, maxDelayMillis, maxPolls);
+            promise.resolve(null);
+        } catch (IllegalArgumentException e) {
+            promise.reject(PaymentResult.ERROR_INVALID_CONFIG, "Invalid options: " + e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void unwatchOrderStatus(String orderReference) {
+        OrderStatusPoller poller = orderStatusPoller;
+        if (poller != null) {
+            poller.unwatch(orderReference);
+        }
+    }
+
+    /**
+     * @return the poller, created on first use; null once the module has been released
+     */
+    private synchronized OrderStatusPoller getOrderStatusPoller() {
+        if (released.get()) {
+            // Released; a new poller would start a thread nothing stops
+            return null;
+        }
+        if (orderStatusPoller == null) {
+            orderStatusPoller = new OrderStatusPoller(OkHttpClientProvider.getOkHttpClient(),
+                    paymentEvents::emitOrderStatus);
+        }
+        return orderStatusPoller;
+    }
+
+    /**
+     * Registers a flow that finishes in onActivityResult. Its result can only be routed by request
+     * code, so while another flow is waiting on the same code the new one is rejected. A flow whose
+     * activity was destroyed before its result came back is aborted with RESULT_LOST instead.
+     *
+     * @return the operation ID, or NO_OPERATION if the flow was rejected
+     */
+    private int bindActivityOperation(int requestCode, PaymentResultListener listener) {
+        PaymentResultListener superseded = pendingPayments.takeReleasedActivityResult(requestCode);
+        if (superseded != null) {
+            // Its outcome is unknown; the journal keeps it for getPendingPayments
+            superseded.keepJournalEntry();
+            superseded.complete(PaymentResult.aborted(PaymentResult.ERROR_RESULT_LOST,
+                    "The activity was destroyed before the payment returned its result"));
+        }
+        int operationId = listener.getOperationId();
+        pendingPayments.register(operationId, listener);
+        if (!pendingPayments.bindActivityResult(requestCode, operationId)) {
+            failOperation(operationId, PaymentResult.ERROR_IN_PROGRESS, "Another payment is already in progress");
+            return NO_OPERATION;
+        }
+        beginJournalEntry(requestCode, listener);
+        return operationId;
+    }
+
+    private void beginJournalEntry(int requestCode, PaymentResultListener listener) {
+        FlowMetrics.Flow flow = listener.getFlow();
+        listener.setJournalEntry(paymentJournal, paymentJournal.begin(listener.getOrderReference(),
+                flow != null ? flow.key : null, requestCode));
+    }
+
+    /**
+     * Resolves with the payments a previous process started but never received the result of,
+     * e.g. because it was killed while the payment UI was open: [{ id, orderReference, flow,
+     * requestCode, startedAt, result? }]. result is set when the payment activity returned its
+     * result to this process. Check the order status of each before dismissing it.
+     */
+    @ReactMethod
+    public void getPendingPayments(Promise promise) {
+        boolean queued = paymentJournal.execute(() -> {
+            WritableArray pendingArray = Arguments.createArray();
+            for (PaymentJournal.Entry entry : paymentJournal.getRecoveredEntries()) {
+                WritableMap pendingMap = Arguments.createMap();
+                pendingMap.putString("id", entry.id);
+                pendingMap.putString("orderReference", entry.orderReference);
+                pendingMap.putString("flow", entry.flow);
+                pendingMap.putInt("requestCode", entry.requestCode);
+                pendingMap.putDouble("startedAt", entry.startedAt);
+                if (entry.lateResult != null) {
+                    pendingMap.putMap("result", entry.lateResult.toWritableMap());
+                }
+                pendingArray.pushMap(pendingMap);
             }
+            promise.resolve(pendingArray);
+        });
+        if (!queued) {
+            promise.reject(PaymentResult.ERROR_RELEASED, RELEASED_MESSAGE);
+        }
+    }
+
+    /**
+     * Removes a payment reported by getPendingPayments from the journal once it is reconciled.
+     */
+    @ReactMethod
+    public void dismissPendingPayment(String id) {
+        paymentJournal.end(id);
+    }
+
+    @ReactMethod
+    public void configureSDK(ReadableMap config) {
+        Boolean shouldShowOrderAmount = config.getBoolean("shouldShowOrderAmount");
+        SDKConfig.INSTANCE.shouldShowOrderAmount(shouldShowOrderAmount);
+    }
+
+    @ReactMethod
+    public void executeThreeDSTwo(ReadableMap paymentResponseMap, Callback executeThreeDSTwoCallback) {
+        launchThreeDSTwo(paymentResponseMap, PaymentResultListener.forCallback(executeThreeDSTwoCallback,
+                Utils.getOptionalString(paymentResponseMap, "orderReference")));
+    }
 
-            String environment = googlePayConfig.hasKey("environment") ? 
-                    googlePayConfig.getString("environment") : "TEST";
-            int walletEnvironment = "PRODUCTION".equals(environment) ? 
-                    WalletConstants.ENVIRONMENT_PRODUCTION : WalletConstants.ENVIRONMENT_TEST;
-
-            PaymentsClient paymentsClient = createPaymentsClient(walletEnvironment);
-
-            JSONObject isReadyToPayRequestJson = new JSONObject();
-            isReadyToPayRequestJson.put("apiVersion", 2);
-            isReadyToPayRequestJson.put("apiVersionMinor", 0);
-
-            JSONArray allowedPaymentMethods = new JSONArray();
-            JSONObject cardPaymentMethod = new JSONObject();
-            cardPaymentMethod.put("type", "CARD");
-            
-            JSONObject parameters = new JSONObject();
-            parameters.put("allowedAuthMethods", new JSONArray().put("PAN_ONLY").put("CRYPTOGRAM_3DS"));
-            parameters.put("allowedCardNetworks", new JSONArray().put("VISA").put("MASTERCARD"));
-            
-            cardPaymentMethod.put("parameters", parameters);
-            allowedPaymentMethods.put(cardPaymentMethod);
-            
-            isReadyToPayRequestJson.put("allowedPaymentMethods", allowedPaymentMethods);
-
-            IsReadyToPayRequest request = IsReadyToPayRequest.fromJson(isReadyToPayRequestJson.toString());
-            
-            Task<Boolean> task = paymentsClient.isReadyToPay(request);
-            task.addOnCompleteListener(completedTask -> {
+    /**
+     * Promise variant of executeThreeDSTwo. Resolves with the result map for every outcome.
+     */
+    @ReactMethod
+    public void startThreeDSTwo(ReadableMap paymentResponseMap, Promise promise) {
+        launchThreeDSTwo(paymentResponseMap, PaymentResultListener.forPromise(promise,
+                Utils.getOptionalString(paymentResponseMap, "orderReference")));
+    }
+
+    private void launchThreeDSTwo(ReadableMap paymentResponseMap, PaymentResultListener listener) {
+        track(listener, FlowMetrics.Flow.THREE_DS_TWO);
+        executeFlow(listener, () -> {
+            PaymentResponse paymentResponse;
+            try {
+                paymentResponse = Utils.buildPaymentResponseFromReadableMap(paymentResponseMap);
+                listener.setPaymentReference(Utils.getOptionalString(paymentResponseMap, "reference"));
+            } catch (RuntimeException e) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_INVALID_ORDER,
+                        "Invalid payment response: " + e.getMessage()));
+                return;
+            }
+            launchOnUiThread(listener, currentActivity -> {
+                int operationId = bindActivityOperation(EXECUTE_THREE_DS_TWO_ACTIVITY_REQUEST_CODE, listener);
+                if (operationId == NO_OPERATION) {
+                    return;
+                }
                 try {
-                    boolean result = completedTask.getResult(ApiException.class);
-                    callback.invoke(result);
-                } catch (ApiException exception) {
-                    callback.invoke(false);
+                    paymentLauncher.launchThreeDSTwo(currentActivity, paymentResponse,
+                            EXECUTE_THREE_DS_TWO_ACTIVITY_REQUEST_CODE);
+                    listener.launched(PaymentEventEmitter.THREE_DS_STARTED);
+                } catch (RuntimeException e) {
+                    failActivityOperation(EXECUTE_THREE_DS_TWO_ACTIVITY_REQUEST_CODE, operationId,
+                            PaymentResult.ERROR_PAYMENT_FAILED, e.getMessage());
                 }
             });
-        } catch (Exception e) {
-            callback.invoke(false);
-        }
+        });
     }
 
     @ReactMethod
-    public void initiateGooglePay(ReadableMap googlePayConfig, ReadableMap orderDetails, Callback googlePayCallback) {
-        try {
-            if (googlePayConfig == null || orderDetails == null) {
-                googlePayCallback.invoke("Failed", "Configuration or order details are missing");
+    public void initiateSamsungPay(ReadableMap orderResponse, String merchantName, String serviceId, Callback samsungPayResponseCallback) {
+        launchSamsungPay(orderResponse, merchantName, serviceId, PaymentResultListener.forCallback(
+                samsungPayResponseCallback, Utils.getOptionalString(orderResponse, "reference")));
+    }
+
+    /**
+     * Promise variant of initiateSamsungPay. Resolves with the result map for every outcome.
+     */
+    @ReactMethod
+    public void startSamsungPay(ReadableMap orderResponse, String merchantName, String serviceId, Promise promise) {
+        launchSamsungPay(orderResponse, merchantName, serviceId, PaymentResultListener.forPromise(
+                promise, Utils.getOptionalString(orderResponse, "reference")));
+    }
+
+    /**
+     * Variant of startSamsungPay taking the order as a JSON string, read like in
+     * startCardPaymentWithJson.
+     */
+    @ReactMethod
+    public void startSamsungPayWithJson(String orderJson, String merchantName, String serviceId, Promise promise) {
+        PaymentResultListener listener = PaymentResultListener.forPromise(promise, null);
+        track(listener, FlowMetrics.Flow.SAMSUNG_PAY);
+        executeFlow(listener, () -> {
+            Order order;
+            try {
+                OrderProjection orderProjection = OrderProjection.fromJson(orderJson);
+                listener.setOrderReference(orderProjection.getReference());
+                listener.setPaymentReference(orderProjection.getPaymentReference());
+                order = orderProjection.toOrder();
+            } catch (IOException | RuntimeException e) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_INVALID_ORDER, "Invalid order: " + e.getMessage()));
                 return;
             }
+            launchSamsungPayOrder(order, merchantName, serviceId, listener);
+        });
+    }
 
-            Activity currentActivity = this.getCurrentActivity();
-            if (currentActivity == null) {
-                googlePayCallback.invoke("Failed", "Activity is null");
+    private void launchSamsungPay(ReadableMap orderResponse, String merchantName, String serviceId,
+                                  PaymentResultListener listener) {
+        track(listener, FlowMetrics.Flow.SAMSUNG_PAY);
+        executeFlow(listener, () -> {
+            Order order;
+            try {
+                order = Utils.constructOrderFromReadableMap(orderResponse);
+                listener.setPaymentReference(Utils.getPaymentReference(orderResponse));
+            } catch (RuntimeException e) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_INVALID_ORDER, "Invalid order: " + e.getMessage()));
                 return;
             }
+            launchSamsungPayOrder(order, merchantName, serviceId, listener);
+        });
+    }
 
-            this.googlePayResponseCallback = googlePayCallback;
+    private void launchSamsungPayOrder(Order order, String merchantName, String serviceId,
+                                       PaymentResultListener listener) {
+        launchOnUiThread(listener, currentActivity -> {
+            int operationId = listener.getOperationId();
+            pendingPayments.register(operationId, listener);
+            beginJournalEntry(NO_REQUEST_CODE, listener);
+            try {
+                paymentLauncher.launchSamsungPay(currentActivity, order, merchantName, serviceId,
+                        new PaymentLauncher.SamsungPayListener() {
+                            @Override
+                            public void onSuccess() {
+                                PaymentResultListener pending = pendingPayments.take(operationId);
+                                if (pending != null) {
+                                    pending.complete(PaymentResult.success());
+                                }
+                            }
 
-            String environment = googlePayConfig.hasKey("environment") ? 
-                    googlePayConfig.getString("environment") : "TEST";
-            int walletEnvironment = "PRODUCTION".equals(environment) ? 
-                    WalletConstants.ENVIRONMENT_PRODUCTION : WalletConstants.ENVIRONMENT_TEST;
+                            @Override
+                            public void onFailure(String message) {
+                                failOperation(operationId, PaymentResult.ERROR_WALLET, message);
+                            }
+                        });
+                listener.launched(PaymentEventEmitter.SHEET_SHOWN);
+            } catch (RuntimeException e) {
+                failOperation(operationId, PaymentResult.ERROR_WALLET, e.getMessage());
+            }
+        });
+    }
 
-            this.paymentsClient = createPaymentsClient(walletEnvironment);
+    @ReactMethod
+    public void isSamsungPayEnabled(String serviceId, Callback isSamsungPayEnabledCallback) {
+        samsungPayAvailability.get(serviceId, isSamsungPayEnabledCallback::invoke);
+    }
 
-            JSONObject paymentDataRequestJson = new JSONObject();
-            paymentDataRequestJson.put("apiVersion", 2);
-            paymentDataRequestJson.put("apiVersionMinor", 0);
+    private static HandlerThread startWalletThread() {
+        HandlerThread thread = new HandlerThread("NiSdkWallets");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
 
-            JSONObject transactionInfo = new JSONObject();
-            transactionInfo.put("totalPriceStatus", "FINAL");
-            transactionInfo.put("totalPrice", orderDetails.getString("amount"));
-            transactionInfo.put("currencyCode", orderDetails.getString("currencyCode"));
-            paymentDataRequestJson.put("transactionInfo", transactionInfo);
+    private void runOnWalletThread(Runnable task) {
+        if (!walletHandler.post(task)) {
+            // The thread has quit with the module
+            throw new RejectedExecutionException();
+        }
+    }
 
-            JSONObject merchantInfo = new JSONObject();
-            merchantInfo.put("merchantName", googlePayConfig.getString("merchantName"));
-            if (googlePayConfig.hasKey("merchantId")) {
-                merchantInfo.put("merchantId", googlePayConfig.getString("merchantId"));
-            }
-            if (googlePayConfig.hasKey("merchantOrigin")) {
-                merchantInfo.put("merchantOrigin", googlePayConfig.getString("merchantOrigin"));
-            }
-            paymentDataRequestJson.put("merchantInfo", merchantInfo);
-
-            JSONArray allowedPaymentMethods = new JSONArray();
-            JSONObject cardPaymentMethod = new JSONObject();
-            cardPaymentMethod.put("type", "CARD");
-            
-            JSONObject parameters = new JSONObject();
-            JSONArray allowedAuthMethods = new JSONArray();
-            allowedAuthMethods.put("PAN_ONLY");
-            allowedAuthMethods.put("CRYPTOGRAM_3DS");
-            parameters.put("allowedAuthMethods", allowedAuthMethods);
-            
-            JSONArray allowedCardNetworks = new JSONArray();
-            allowedCardNetworks.put("VISA");
-            allowedCardNetworks.put("MASTERCARD");
-            parameters.put("allowedCardNetworks", allowedCardNetworks);
-            cardPaymentMethod.put("parameters", parameters);
-
-            JSONObject tokenizationSpecification = new JSONObject();
-            tokenizationSpecification.put("type", "PAYMENT_GATEWAY");
-            JSONObject tokenizationParameters = new JSONObject();
-            tokenizationParameters.put("gateway", googlePayConfig.getString("gateway"));
-            tokenizationParameters.put("gatewayMerchantId", googlePayConfig.getString("gatewayMerchantId"));
-            tokenizationSpecification.put("parameters", tokenizationParameters);
-            cardPaymentMethod.put("tokenizationSpecification", tokenizationSpecification);
-            
-            allowedPaymentMethods.put(cardPaymentMethod);
-            paymentDataRequestJson.put("allowedPaymentMethods", allowedPaymentMethods);
-
-            PaymentDataRequest request = PaymentDataRequest.fromJson(paymentDataRequestJson.toString());
-            
-            if (request != null) {
-                AutoResolveHelper.resolveTask(
-                    paymentsClient.loadPaymentData(request),
-                    currentActivity,
-                    GOOGLE_PAY_REQUEST_CODE
-                );
-            } else {
-                googlePayCallback.invoke("Failed", "Failed to create payment request");
-            }
+    private void probeSamsungPay(String serviceId, AvailabilityCache.ProbeListener listener) {
+        Activity currentActivity = this.getCurrentActivity();
+        if (currentActivity == null) {
+            listener.onResult(null);
+            return;
+        }
+        paymentLauncher.isSamsungPayEnabled(currentActivity, serviceId, listener::onResult);
+    }
+
+    private String getWalletEnvironment(ReadableMap googlePayConfig) {
+        String environment = googlePayConfig.hasKey("environment") ?
+                googlePayConfig.getString("environment") : "TEST";
+        return GooglePayRequestTemplate.toWalletEnvironment(environment);
+    }
+
+    private void probeGooglePay(String walletEnvironment, AvailabilityCache.ProbeListener listener) {
+        try {
+            paymentLauncher.isGooglePayReady(walletEnvironment, GooglePayRequestTemplate.getIsReadyToPayRequestJson(),
+                    listener::onResult);
         } catch (JSONException e) {
-            if (googlePayCallback != null) {
-                googlePayCallback.invoke("Failed", "JSON error: " + e.getMessage());
-            }
-        } catch (Exception e) {
-            if (googlePayCallback != null) {
-                googlePayCallback.invoke("Failed", "Error: " + e.getMessage());
+            listener.onResult(null);
+        }
+    }
+
+    /**
+     * Builds the Google Pay client for the configured environment and runs isReadyToPay in the
+     * background, so that the first isGooglePaySupported / initiateGooglePay call has no setup
+     * cost left. Call it once when the app starts.
+     */
+    @ReactMethod
+    public void warmUp(ReadableMap googlePayConfig) {
+        if (googlePayConfig == null) {
+            return;
+        }
+        String walletEnvironment = getWalletEnvironment(googlePayConfig);
+        googlePayAvailability.get(walletEnvironment, available -> {});
+    }
+
+    /**
+     * Validates the static Google Pay gateway and merchant config once and keeps the compiled
+     * request, so initiateGooglePay and isGooglePaySupported can be called without a config.
+     */
+    @ReactMethod
+    public void configureGooglePay(ReadableMap googlePayConfig, Callback callback) {
+        try {
+            this.googlePayRequestTemplate = GooglePayRequestTemplate.compile(googlePayConfig);
+            callback.invoke("Success");
+        } catch (IllegalArgumentException e) {
+            callback.invoke("Failed", e.getMessage());
+        } catch (JSONException e) {
+            callback.invoke("Failed", "JSON error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the configured template, or compiles a per-call config for this payment only. Only
+     * configureGooglePay replaces the configured template.
+     */
+    private GooglePayRequestTemplate getGooglePayRequestTemplate(ReadableMap googlePayConfig) throws JSONException {
+        GooglePayRequestTemplate template = this.googlePayRequestTemplate;
+        if (googlePayConfig == null || (template != null && template.isCompiledFrom(googlePayConfig))) {
+            return template;
+        }
+        return GooglePayRequestTemplate.compile(googlePayConfig);
+    }
+
+    @ReactMethod
+    public void isGooglePaySupported(ReadableMap googlePayConfig, Callback callback) {
+        GooglePayRequestTemplate template = this.googlePayRequestTemplate;
+        if (googlePayConfig == null && template == null) {
+            callback.invoke(false);
+            return;
+        }
+
+        String walletEnvironment = googlePayConfig != null ?
+                getWalletEnvironment(googlePayConfig) : template.getWalletEnvironment();
+        googlePayAvailability.get(walletEnvironment, callback::invoke);
+    }
+
+    /**
+     * Runs the Google Pay and Samsung Pay availability probes in parallel and resolves with one
+     * map, e.g. { googlePay: true, samsungPay: false }. Only the wallets present in config are
+     * probed: { googlePay: { environment }, samsungPay: { serviceId } }. Answers are cached for a
+     * few minutes and invalidated when the app resumes; callers asking while a probe is running
+     * share it.
+     */
+    @ReactMethod
+    public void getAvailablePaymentMethods(ReadableMap config, Promise promise) {
+        ReadableMap googlePayConfig = config.hasKey("googlePay") && !config.isNull("googlePay") ?
+                config.getMap("googlePay") : null;
+        ReadableMap samsungPayConfig = config.hasKey("samsungPay") && !config.isNull("samsungPay") ?
+                config.getMap("samsungPay") : null;
+        String samsungPayServiceId = Utils.getOptionalString(samsungPayConfig, "serviceId");
+
+        WritableMap availability = Arguments.createMap();
+        AtomicInteger remaining = new AtomicInteger(
+                (googlePayConfig != null ? 1 : 0) + (samsungPayServiceId != null ? 1 : 0));
+        if (remaining.get() == 0) {
+            promise.resolve(availability);
+            return;
+        }
+        if (googlePayConfig != null) {
+            googlePayAvailability.get(getWalletEnvironment(googlePayConfig), available -> {
+                synchronized (availability) {
+                    availability.putBoolean("googlePay", available);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    promise.resolve(availability);
+                }
+            });
+        }
+        if (samsungPayServiceId != null) {
+            samsungPayAvailability.get(samsungPayServiceId, available -> {
+                synchronized (availability) {
+                    availability.putBoolean("samsungPay", available);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    promise.resolve(availability);
+                }
+            });
+        }
+    }
+
+    @ReactMethod
+    public void initiateGooglePay(ReadableMap googlePayConfig, ReadableMap orderDetails, Callback googlePayCallback) {
+        launchGooglePay(googlePayConfig, orderDetails, PaymentResultListener.forCallback(googlePayCallback,
+                orderDetails != null ? Utils.getOptionalString(orderDetails, "reference") : null));
+    }
+
+    /**
+     * Promise variant of initiateGooglePay. Resolves with the result map for every outcome.
+     */
+    @ReactMethod
+    public void startGooglePay(ReadableMap googlePayConfig, ReadableMap orderDetails, Promise promise) {
+        launchGooglePay(googlePayConfig, orderDetails, PaymentResultListener.forPromise(promise,
+                orderDetails != null ? Utils.getOptionalString(orderDetails, "reference") : null));
+    }
+
+    private void launchGooglePay(ReadableMap googlePayConfig, ReadableMap orderDetails, PaymentResultListener listener) {
+        track(listener, FlowMetrics.Flow.GOOGLE_PAY);
+        if ((googlePayConfig == null && this.googlePayRequestTemplate == null) || orderDetails == null) {
+            listener.complete(PaymentResult.failed(PaymentResult.ERROR_INVALID_CONFIG,
+                    "Configuration or order details are missing"));
+            return;
+        }
+        executeFlow(listener, () -> {
+            String walletEnvironment;
+            String requestJson;
+            try {
+                GooglePayRequestTemplate template = getGooglePayRequestTemplate(googlePayConfig);
+                walletEnvironment = template.getWalletEnvironment();
+                requestJson = template.createPaymentDataRequestJson(
+                        orderDetails.getString("amount"), orderDetails.getString("currencyCode"));
+            } catch (JSONException e) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_INVALID_CONFIG, "JSON error: " + e.getMessage()));
+                return;
+            } catch (IllegalArgumentException e) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_INVALID_CONFIG, e.getMessage()));
+                return;
+            } catch (Exception e) {
+                listener.complete(PaymentResult.failed(PaymentResult.ERROR_WALLET, "Error: " + e.getMessage()));
+                return;
             }
+            launchOnUiThread(listener, currentActivity -> {
+                int operationId = bindActivityOperation(GOOGLE_PAY_REQUEST_CODE, listener);
+                if (operationId == NO_OPERATION) {
+                    return;
+                }
+                try {
+                    paymentLauncher.launchGooglePay(currentActivity, walletEnvironment, requestJson,
+                            GOOGLE_PAY_REQUEST_CODE);
+                    listener.launched(PaymentEventEmitter.SHEET_SHOWN);
+                } catch (Exception e) {
+                    failActivityOperation(GOOGLE_PAY_REQUEST_CODE, operationId, PaymentResult.ERROR_WALLET,
+                            "Error: " + e.getMessage());
+                }
+            });
+        });
+    }
+
+    private void failActivityOperation(int requestCode, int operationId, String errorCode, String errorMessage) {
+        pendingPayments.unbindActivityResult(requestCode, operationId);
+        failOperation(operationId, errorCode, errorMessage);
+    }
+
+    private void failOperation(int operationId, String errorCode, String errorMessage) {
+        // Once registered, the listener belongs to the pending operation and may already be completed
+        PaymentResultListener pending = pendingPayments.take(operationId);
+        if (pending != null) {
+            pending.complete(PaymentResult.failed(errorCode, errorMessage));
         }
     }
 }
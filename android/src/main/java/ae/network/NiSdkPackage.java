@@ -1,18 +1,52 @@
 package ae.network;
 
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
-import com.facebook.react.ReactPackage;
+import com.facebook.react.TurboReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 import com.facebook.react.uimanager.ViewManager;
 
-public class NiSdkPackage implements ReactPackage {
+public class NiSdkPackage extends TurboReactPackage {
+
+    private final PaymentLauncher paymentLauncher;
+
+    public NiSdkPackage() {
+        this(null);
+    }
+
+    /**
+     * @param paymentLauncher starts the payment UIs instead of the payment SDKs, e.g. a fake that
+     *                        returns canned results in load tests; null for the SDKs
+     */
+    public NiSdkPackage(PaymentLauncher paymentLauncher) {
+        this.paymentLauncher = paymentLauncher;
+    }
+
+    @Override
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (NiSdkModule.NAME.equals(name)) {
+            return paymentLauncher != null
+                    ? new NiSdkModule(reactContext, paymentLauncher)
+                    : new NiSdkModule(reactContext);
+        }
+        return null;
+    }
+
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        return Arrays.<NativeModule>asList(new NiSdkModule(reactContext));
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return () -> Collections.singletonMap(NiSdkModule.NAME, new ReactModuleInfo(
+                NiSdkModule.NAME,
+                NiSdkModule.class.getName(),
+                false, // canOverrideExistingModule
+                false, // needsEagerInit
+                true, // hasConstants
+                false, // isCxxModule
+                NiSdkSpec.IS_TURBO_MODULE
+        ));
     }
 
     @Override
@@ -0,0 +1,109 @@
+package ae.network;
+
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
+
+import java.io.IOException;
+
+import okhttp3.Call;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Creates or fetches an order over HTTP and parses it natively, so the order JSON never has to
+ * cross the bridge. The OkHttp client is passed in; the module uses the one React Native's fetch
+ * uses, so order calls share its connection pool (keep-alive, HTTP/2) and TLS sessions.
+ */
+class OrderClient {
+
+    interface Listener {
+        void onOrder(OrderProjection order);
+
+        void onError(String errorCode, String errorMessage);
+    }
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/json";
+
+    private final OkHttpClient httpClient;
+
+    OrderClient(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * @param request { url, method, headers, body }; the method defaults to POST when there is a
+     *                body and GET otherwise
+     * @throws IllegalArgumentException if the request has no valid url
+     */
+    void fetch(ReadableMap request, Listener listener) {
+        httpClient.newCall(toHttpRequest(request)).enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                listener.onError(PaymentResult.ERROR_NETWORK, e.getMessage());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful() || body == null) {
+                        listener.onError(PaymentResult.ERROR_HTTP, "HTTP " + response.code());
+                        return;
+                    }
+                    OrderProjection order;
+                    try {
+                        order = OrderProjection.fromJson(body.charStream());
+                    } catch (IOException | IllegalStateException e) {
+                        listener.onError(PaymentResult.ERROR_PARSE, "Failed to parse order: " + e.getMessage());
+                        return;
+                    }
+                    listener.onOrder(order);
+                }
+            }
+        });
+    }
+
+    /**
+     * @throws IllegalArgumentException if the request has no valid url or a header that is not a
+     *                                  string
+     */
+    static Request toHttpRequest(ReadableMap request) {
+        String url = Utils.getOptionalString(request, "url");
+        if (url == null) {
+            throw new IllegalArgumentException("Missing url");
+        }
+        Request.Builder builder = new Request.Builder().url(url);
+
+        String contentType = DEFAULT_CONTENT_TYPE;
+        ReadableMap headers = Utils.getOptionalMap(request, "headers");
+        if (headers != null) {
+            ReadableMapKeySetIterator iterator = headers.keySetIterator();
+            while (iterator.hasNextKey()) {
+                String name = iterator.nextKey();
+                if (headers.getType(name) != ReadableType.String) {
+                    throw new IllegalArgumentException("Header " + name + " is not a string");
+                }
+                String value = headers.getString(name);
+                if ("content-type".equalsIgnoreCase(name)) {
+                    contentType = value;
+                } else {
+                    builder.header(name, value);
+                }
+            }
+        }
+
+        String body = Utils.getOptionalString(request, "body");
+        String method = Utils.getOptionalString(request, "method");
+        if (method == null) {
+            method = body != null ? "POST" : "GET";
+        }
+        // RequestBody.create(MediaType, String) is the overload OkHttp 3.12, shipped with React
+        // Native 0.60-0.63, and OkHttp 4 both have
+        builder.method(method, body != null ? RequestBody.create(MediaType.parse(contentType), body) : null);
+        return builder.build();
+    }
+}
@@ -0,0 +1,308 @@
+package ae.network;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import payment.sdk.android.core.Order;
+
+/**
+ * The fields of an N-Genius order the payment flows need, read with a streaming parser straight
+ * from the order JSON. Everything else, such as the merchant attributes and the embedded payment
+ * apart from its reference, state and Samsung Pay link, is skipped without being materialized.
+ */
+class OrderProjection {
+
+    private String reference;
+    private String outletId;
+    private String currencyCode;
+    private Long amountValue;
+    private String paymentUrl;
+    private String paymentAuthorizationUrl;
+    private final List<String> cards = new ArrayList<>();
+    private final List<String> wallets = new ArrayList<>();
+    private String samsungPayUrl;
+    private String paymentReference;
+    private String paymentState;
+
+    private OrderProjection() {
+    }
+
+    /**
+     * @throws IOException if the JSON is malformed
+     */
+    static OrderProjection fromJson(String orderJson) throws IOException {
+        return fromJson(new StringReader(orderJson));
+    }
+
+    /**
+     * @throws IOException if the JSON is malformed
+     */
+    static OrderProjection fromJson(Reader orderJson) throws IOException {
+        OrderProjection order = new OrderProjection();
+        try (JsonReader reader = new JsonReader(orderJson)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "reference":
+                        order.reference = nextStringOrNull(reader);
+                        break;
+                    case "outletId":
+                        order.outletId = nextStringOrNull(reader);
+                        break;
+                    case "amount":
+                        order.readAmount(reader);
+                        break;
+                    case "_links":
+                        order.readLinks(reader);
+                        break;
+                    case "paymentMethods":
+                        order.readPaymentMethods(reader);
+                        break;
+                    case "_embedded":
+                        order.readEmbedded(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                }
+            }
+            reader.endObject();
+        }
+        return order;
+    }
+
+    private void readLinks(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) {
+            return;
+        }
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "payment":
+                    paymentUrl = nextHref(reader);
+                    break;
+                case "payment-authorization":
+                    paymentAuthorizationUrl = nextHref(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readAmount(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) {
+            return;
+        }
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "currencyCode":
+                    currencyCode = nextStringOrNull(reader);
+                    break;
+                case "value":
+                    // Minor units; read as a long so large amounts do not overflow
+                    if (reader.peek() == JsonToken.NUMBER) {
+                        amountValue = (long) reader.nextDouble();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private void readPaymentMethods(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) {
+            return;
+        }
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "card":
+                    readStrings(reader, cards);
+                    break;
+                case "wallet":
+                    readStrings(reader, wallets);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void readStrings(JsonReader reader, List<String> values) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.STRING) {
+                values.add(reader.nextString());
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Reads the reference, state and Samsung Pay link of the first embedded payment.
+     */
+    private void readEmbedded(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) {
+            return;
+        }
+        while (reader.hasNext()) {
+            if ("payment".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                reader.beginArray();
+                if (reader.hasNext() && beginObjectOrSkip(reader)) {
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        if ("reference".equals(name)) {
+                            paymentReference = nextStringOrNull(reader);
+                        } else if ("state".equals(name)) {
+                            paymentState = nextStringOrNull(reader);
+                        } else if ("_links".equals(name) && beginObjectOrSkip(reader)) {
+                            while (reader.hasNext()) {
+                                if ("payment:samsung_pay".equals(reader.nextName())) {
+                                    samsungPayUrl = nextHref(reader);
+                                } else {
+                                    reader.skipValue();
+                                }
+                            }
+                            reader.endObject();
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+                while (reader.hasNext()) {
+                    reader.skipValue();
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    /**
+     * @return true if an object was begun, false if the value was something else and skipped
+     */
+    private static boolean beginObjectOrSkip(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return false;
+        }
+        reader.beginObject();
+        return true;
+    }
+
+    private static String nextHref(JsonReader reader) throws IOException {
+        if (!beginObjectOrSkip(reader)) {
+            return null;
+        }
+        String href = null;
+        while (reader.hasNext()) {
+            if ("href".equals(reader.nextName())) {
+                href = nextStringOrNull(reader);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return href;
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    String getReference() {
+        return reference;
+    }
+
+    /**
+     * Reference of the order's (first) embedded payment.
+     */
+    String getPaymentReference() {
+        return paymentReference;
+    }
+
+    /**
+     * State of the order's (first) embedded payment, e.g. STARTED, AUTHORISED or CAPTURED.
+     */
+    String getPaymentState() {
+        return paymentState;
+    }
+
+    String getPaymentUrl() {
+        return paymentUrl;
+    }
+
+    String getPaymentAuthorizationUrl() {
+        return paymentAuthorizationUrl;
+    }
+
+    /**
+     * Builds the same payment-sdk order as Utils.constructOrderFromReadableMap.
+     *
+     * @throws IllegalArgumentException if the amount or payment links are missing
+     */
+    Order toOrder() {
+        if (amountValue == null) {
+            throw new IllegalArgumentException("Missing amount.value");
+        }
+        if (paymentUrl == null || paymentAuthorizationUrl == null) {
+            throw new IllegalArgumentException("Missing payment links");
+        }
+        Order order = new Order();
+        order.setOutletId(outletId);
+        order.setReference(reference);
+
+        Order.Amount amount = new Order.Amount();
+        amount.setCurrencyCode(currencyCode);
+        amount.setValue((double) amountValue);
+        order.setAmount(amount);
+
+        Order.Links links = new Order.Links();
+        links.setPaymentAuthorizationUrl(toHref(paymentAuthorizationUrl));
+        links.setPaymentUrl(toHref(paymentUrl));
+        order.setLinks(links);
+
+        Order.PaymentMethods paymentMethods = new Order.PaymentMethods();
+        paymentMethods.setCard(new ArrayList<>(cards));
+        paymentMethods.setWallet(wallets.toArray(new String[0]));
+        order.setPaymentMethods(paymentMethods);
+
+        Order.PaymentLinks paymentLinks = new Order.PaymentLinks();
+        paymentLinks.setSamsungPayLink(toHref(samsungPayUrl));
+        Order.Payment payment = new Order.Payment();
+        payment.setLinks(paymentLinks);
+        Order.Embedded embedded = new Order.Embedded();
+        embedded.setPayment(new Order.Payment[]{payment});
+        order.setEmbedded(embedded);
+        return order;
+    }
+
+    private static Order.Href toHref(String url) {
+        Order.Href href = new Order.Href();
+        href.setHref(url);
+        return href;
+    }
+}
@@ -0,0 +1,237 @@
+package ae.network;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Polls the status of a set of orders on one shared scheduler thread, so JS does not have to run
+ * timers or receive the order on every poll. Each order is polled with exponential backoff and
+ * jitter, using If-None-Match with the last ETag so unchanged orders cost a 304. The listener is
+ * only told when the payment state changes; polling stops at a final state or after maxPolls.
+ */
+class OrderStatusPoller {
+
+    interface Listener {
+        void onStatusChanged(String orderReference, String paymentState);
+    }
+
+    private static final Set<String> FINAL_STATES = new HashSet<>(Arrays.asList(
+            "AUTHORISED", "CAPTURED", "PURCHASED", "FAILED", "REVERSED", "CANCELLED"));
+    // Caps the backoff exponent so the shift cannot overflow
+    private static final int MAX_BACKOFF_EXPONENT = 16;
+
+    private static final class Watch {
+        final String orderReference;
+        final Request request;
+        final long initialDelayMillis;
+        final long maxDelayMillis;
+        final int maxPolls;
+        // All guarded by the poller
+        String etag;
+        String paymentState;
+        int attempt;
+        int pollCount;
+        ScheduledFuture<?> scheduledPoll;
+        Call call;
+
+        Watch(String orderReference, Request request, long initialDelayMillis, long maxDelayMillis, int maxPolls) {
+            this.orderReference = orderReference;
+            this.request = request;
+            this.initialDelayMillis = initialDelayMillis;
+            this.maxDelayMillis = maxDelayMillis;
+            this.maxPolls = maxPolls;
+        }
+    }
+
+    private final OkHttpClient httpClient;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler;
+    // Both guarded by this
+    private final Map<String, Watch> watches = new HashMap<>();
+    private final Random random;
+
+    OrderStatusPoller(OkHttpClient httpClient, Listener listener) {
+        this(httpClient, listener, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NiSdkOrderStatus");
+            thread.setDaemon(true);
+            return thread;
+        }), new Random());
+    }
+
+    /**
+     * @param scheduler runs the polls; the poller shuts it down in {@link #shutdown()}
+     * @param random    source of the backoff jitter
+     */
+    OrderStatusPoller(OkHttpClient httpClient, Listener listener, ScheduledExecutorService scheduler, Random random) {
+        this.httpClient = httpClient;
+        this.listener = listener;
+        this.scheduler = scheduler;
+        this.random = random;
+    }
+
+    /**
+     * Starts polling the order with the given request, replacing an earlier watch of the same
+     * order. The first poll is sent right away.
+     *
+     * @throws IllegalArgumentException if initialDelayMillis or maxPolls is not positive, or
+     *                                  maxDelayMillis is below initialDelayMillis
+     */
+    synchronized void watch(String orderReference, Request request, long initialDelayMillis, long maxDelayMillis,
+                            int maxPolls) {
+        // A delay of 0 would poll the gateway in a busy loop
+        if (initialDelayMillis <= 0) {
+            throw new IllegalArgumentException("initialDelayMs must be positive");
+        }
+        if (maxDelayMillis < initialDelayMillis) {
+            throw new IllegalArgumentException("maxDelayMs must not be below initialDelayMs");
+        }
+        if (maxPolls <= 0) {
+            throw new IllegalArgumentException("maxPolls must be positive");
+        }
+        unwatch(orderReference);
+        Watch watch = new Watch(orderReference, request, initialDelayMillis, maxDelayMillis, maxPolls);
+        watches.put(orderReference, watch);
+        schedule(watch, 0);
+    }
+
+    synchronized void unwatch(String orderReference) {
+        Watch watch = watches.remove(orderReference);
+        if (watch != null) {
+            cancel(watch);
+        }
+    }
+
+    /**
+     * Polls every watched order that is not being polled already right away and restarts its
+     * backoff, e.g. when the app comes back to the foreground.
+     */
+    synchronized void pollAllNow() {
+        for (Watch watch : watches.values()) {
+            if (watch.call == null) {
+                watch.scheduledPoll.cancel(false);
+                watch.attempt = 0;
+                schedule(watch, 0);
+            }
+        }
+    }
+
+    /**
+     * Stops all polling and the scheduler thread; the poller cannot be used afterwards.
+     */
+    synchronized void shutdown() {
+        for (Watch watch : watches.values()) {
+            cancel(watch);
+        }
+        watches.clear();
+        scheduler.shutdownNow();
+    }
+
+    private void schedule(Watch watch, long delayMillis) {
+        watch.scheduledPoll = scheduler.schedule(() -> poll(watch), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static void cancel(Watch watch) {
+        if (watch.scheduledPoll != null) {
+            watch.scheduledPoll.cancel(false);
+        }
+        if (watch.call != null) {
+            watch.call.cancel();
+        }
+    }
+
+    private void poll(Watch watch) {
+        Call call;
+        synchronized (this) {
+            if (watches.get(watch.orderReference) != watch || watch.call != null) {
+                return;
+            }
+            Request.Builder request = watch.request.newBuilder();
+            if (watch.etag != null) {
+                request.header("If-None-Match", watch.etag);
+            }
+            call = httpClient.newCall(request.build());
+            watch.call = call;
+        }
+        call.enqueue(new okhttp3.Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                onPolled(watch, null, null);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                try (ResponseBody body = response.body()) {
+                    if (!response.isSuccessful() || body == null) {
+                        // Includes 304 Not Modified
+                        onPolled(watch, null, null);
+                        return;
+                    }
+                    String paymentState;
+                    try {
+                        paymentState = OrderProjection.fromJson(body.charStream()).getPaymentState();
+                    } catch (IOException | IllegalStateException e) {
+                        paymentState = null;
+                    }
+                    onPolled(watch, response.header("ETag"), paymentState);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param paymentState the state read from the response, null if the order was unchanged or
+     *                     could not be read
+     */
+    private void onPolled(Watch watch, String etag, String paymentState) {
+        boolean changed;
+        synchronized (this) {
+            if (watches.get(watch.orderReference) != watch) {
+                return;
+            }
+            watch.call = null;
+            watch.pollCount++;
+            if (etag != null) {
+                watch.etag = etag;
+            }
+            changed = paymentState != null && !paymentState.equals(watch.paymentState);
+            if (changed) {
+                watch.paymentState = paymentState;
+                watch.attempt = 0;
+            } else {
+                watch.attempt++;
+            }
+            if (FINAL_STATES.contains(watch.paymentState) || watch.pollCount >= watch.maxPolls) {
+                watches.remove(watch.orderReference);
+            } else {
+                schedule(watch, nextDelayMillis(watch));
+            }
+        }
+        if (changed) {
+            listener.onStatusChanged(watch.orderReference, paymentState);
+        }
+    }
+
+    /**
+     * Exponential backoff with jitter: a random delay between half and all of the backoff.
+     */
+    private long nextDelayMillis(Watch watch) {
+        long backoff = Math.min(watch.maxDelayMillis,
+                watch.initialDelayMillis << Math.min(watch.attempt, MAX_BACKOFF_EXPONENT));
+        return backoff / 2 + (long) (random.nextDouble() * (backoff / 2));
+    }
+}
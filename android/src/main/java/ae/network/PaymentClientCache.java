@@ -0,0 +1,86 @@
+package ae.network;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import payment.sdk.android.PaymentClient;
+
+/**
+ * PaymentClients of the current host activity, keyed by Samsung Pay service ID (empty for card
+ * and 3DS flows), so repeated payments and probes do not construct and bind a new client each
+ * time. The clients reference the activity, so they are dropped as soon as another activity asks
+ * for one, the activity is destroyed (e.g. on a configuration change) or the host goes away.
+ */
+class PaymentClientCache {
+
+    // All guarded by this
+    private Activity activity;
+    private final Map<String, PaymentClient> clients = new HashMap<>();
+
+    private final Application.ActivityLifecycleCallbacks evictOnDestroy = new Application.ActivityLifecycleCallbacks() {
+        @Override
+        public void onActivityCreated(Activity createdActivity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity startedActivity) {
+        }
+
+        @Override
+        public void onActivityResumed(Activity resumedActivity) {
+        }
+
+        @Override
+        public void onActivityPaused(Activity pausedActivity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity stoppedActivity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity savingActivity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity destroyedActivity) {
+            evict(destroyedActivity);
+        }
+    };
+
+    synchronized PaymentClient get(Activity currentActivity, String serviceId) {
+        if (currentActivity.isFinishing() || currentActivity.isDestroyed()) {
+            // It will not report being destroyed again, so the client is not kept
+            return new PaymentClient(currentActivity, serviceId);
+        }
+        if (activity != currentActivity) {
+            clear();
+            activity = currentActivity;
+            currentActivity.getApplication().registerActivityLifecycleCallbacks(evictOnDestroy);
+        }
+        PaymentClient client = clients.get(serviceId);
+        if (client == null) {
+            client = new PaymentClient(currentActivity, serviceId);
+            clients.put(serviceId, client);
+        }
+        return client;
+    }
+
+    private synchronized void evict(Activity destroyedActivity) {
+        if (destroyedActivity == activity) {
+            clear();
+        }
+    }
+
+    synchronized void clear() {
+        clients.clear();
+        if (activity != null) {
+            activity.getApplication().unregisterActivityLifecycleCallbacks(evictOnDestroy);
+            activity = null;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ae.network;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.UiThreadUtil;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Emits the intermediate steps of the payment flows to JS through RCTDeviceEventEmitter.
+ *
+ * Events are only built while JS has subscribed, so the flows pay nothing when nobody listens.
+ * Events raised in the same main thread turn are coalesced into one array and emitted together.
+ */
+class PaymentEventEmitter {
+
+    static final String EVENT_NAME = "NiSdkPaymentEvent";
+
+    static final String ACTIVITY_LAUNCHED = "activityLaunched";
+    static final String THREE_DS_STARTED = "threeDSStarted";
+    static final String SHEET_SHOWN = "sheetShown";
+    static final String RETURNED_TO_APP = "returnedToApp";
+    static final String RESULT_PARSED = "resultParsed";
+    static final String ORDER_STATUS_CHANGED = "orderStatusChanged";
+
+    private final ReactApplicationContext reactContext;
+    private final AtomicInteger listenerCount = new AtomicInteger();
+    private final Runnable flush = this::flush;
+    // Both guarded by this
+    private List<WritableMap> queuedEvents = new ArrayList<>();
+    private boolean flushScheduled;
+
+    PaymentEventEmitter(ReactApplicationContext reactContext) {
+        this.reactContext = reactContext;
+    }
+
+    void addListener() {
+        listenerCount.incrementAndGet();
+    }
+
+    void removeListeners(int count) {
+        int remaining = listenerCount.addAndGet(-count);
+        if (remaining < 0) {
+            listenerCount.compareAndSet(remaining, 0);
+        }
+    }
+
+    /**
+     * @param status the result status, only set for RESULT_PARSED
+     */
+    void emit(String type, int operationId, FlowMetrics.Flow flow, String orderReference, String status) {
+        if (listenerCount.get() <= 0) {
+            return;
+        }
+        WritableMap event = Arguments.createMap();
+        event.putString("type", type);
+        event.putInt("operationId", operationId);
+        event.putString("flow", flow.key);
+        event.putString("orderReference", orderReference);
+        if (status != null) {
+            event.putString("status", status);
+        }
+        enqueue(event);
+    }
+
+    /**
+     * Reports a payment state change observed by the order status poller.
+     */
+    void emitOrderStatus(String orderReference, String paymentState) {
+        if (listenerCount.get() <= 0) {
+            return;
+        }
+        WritableMap event = Arguments.createMap();
+        event.putString("type", ORDER_STATUS_CHANGED);
+        event.putString("orderReference", orderReference);
+        event.putString("paymentState", paymentState);
+        enqueue(event);
+    }
+
+    private void enqueue(WritableMap event) {
+        event.putDouble("timestamp", System.currentTimeMillis());
+        boolean scheduleFlush;
+        synchronized (this) {
+            queuedEvents.add(event);
+            scheduleFlush = !flushScheduled;
+            flushScheduled = true;
+        }
+        if (scheduleFlush) {
+            UiThreadUtil.runOnUiThread(flush);
+        }
+    }
+
+    private void flush() {
+        List<WritableMap> events;
+        synchronized (this) {
+            events = queuedEvents;
+            queuedEvents = new ArrayList<>();
+            flushScheduled = false;
+        }
+        if (!reactContext.hasActiveCatalystInstance()) {
+            return;
+        }
+        WritableArray batch = Arguments.createArray();
+        for (WritableMap event : events) {
+            batch.pushMap(event);
+        }
+        reactContext.getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class).emit(EVENT_NAME, batch);
+    }
+}
@@ -0,0 +1,305 @@
+package ae.network;
+
+import android.util.AtomicFile;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Append-only on-disk journal of the payments in flight, so that after the process was killed
+ * while a payment UI was open the module can tell which payments never reported a result.
+ *
+ * Every started payment appends a begin line and every completed one an end line, each synced to
+ * disk before the next is written; once enough end lines have accumulated the file is compacted to
+ * the open entries. Appends go straight to the file, as rewriting it through {@link AtomicFile}
+ * for every line would cost a copy of the journal per payment step. A crash can therefore tear the
+ * last line; a line without its newline is skipped when reading, which loses at most the begin or
+ * end line being written, and is ended before the next append so the two are not joined.
+ * Compaction does go through AtomicFile, and a compaction interrupted by a crash is rolled back or
+ * discarded by the first read of the next instance, before it appends anything. All file access
+ * runs in order on one background thread, so appends and compactions never interleave; entries
+ * loaded from a previous process are "recovered" until JS dismisses them.
+ *
+ * Begin lines carry the ID of the journal instance that wrote them, so a result delivered after
+ * the process was recreated is only matched against the entries of the process that launched it.
+ */
+class PaymentJournal {
+
+    static final class Entry {
+        final String id;
+        // Journal instance that began the entry, null for lines written before sessions were kept
+        final String session;
+        final String orderReference;
+        final String flow;
+        final int requestCode;
+        final long startedAt;
+        // Result delivered to this process for a recovered entry, guarded by the journal
+        PaymentResult lateResult;
+
+        Entry(String id, String session, String orderReference, String flow, int requestCode, long startedAt) {
+            this.id = id;
+            this.session = session;
+            this.orderReference = orderReference;
+            this.flow = flow;
+            this.requestCode = requestCode;
+            this.startedAt = startedAt;
+        }
+    }
+
+    private static final String BEGIN = "B";
+    private static final String END = "E";
+    private static final String SEPARATOR = "\t";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int COMPACTION_THRESHOLD = 32;
+    // Begin lines before and after the session field was added
+    private static final int LEGACY_BEGIN_FIELDS = 6;
+    private static final int BEGIN_FIELDS = 7;
+
+    private final AtomicFile file;
+    private final String session = UUID.randomUUID().toString();
+    private final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "NiSdkJournal");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // All guarded by this
+    private final Map<String, Entry> openEntries = new LinkedHashMap<>();
+    private final Map<String, Entry> recoveredEntries = new LinkedHashMap<>();
+    private int endsSinceCompaction;
+    private int nextId;
+    // Whether the file ends in a torn line the next append must not continue; journal thread only
+    private boolean tornTail;
+
+    PaymentJournal(File file) {
+        this.file = new AtomicFile(file);
+    }
+
+    /**
+     * Reads the entries a previous process left open, in the background.
+     */
+    void load() {
+        execute(this::readEntries);
+    }
+
+    /**
+     * Runs the task on the journal thread, after the entries have been loaded.
+     *
+     * @return false if the journal has been shut down and the task will not run
+     */
+    boolean execute(Runnable task) {
+        try {
+            ioExecutor.execute(task);
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Shut down; the file keeps the entries for the next module instance
+            return false;
+        }
+    }
+
+    /**
+     * Lets the queued writes finish and stops the journal thread. Entries still open stay in the
+     * file and are reported as pending by the next instance.
+     */
+    void shutdown() {
+        ioExecutor.shutdown();
+    }
+
+    /**
+     * @return the ID of the new entry
+     */
+    String begin(String orderReference, String flow, int requestCode) {
+        Entry entry;
+        synchronized (this) {
+            long startedAt = System.currentTimeMillis();
+            entry = new Entry(startedAt + "-" + (++nextId), session, orderReference, flow, requestCode, startedAt);
+            openEntries.put(entry.id, entry);
+        }
+        StringBuilder line = new StringBuilder();
+        appendBegin(line, entry);
+        execute(() -> append(line.toString()));
+        return entry.id;
+    }
+
+    /**
+     * Closes an entry of this process, or dismisses a recovered one.
+     */
+    void end(String id) {
+        boolean compact;
+        synchronized (this) {
+            if (openEntries.remove(id) == null && recoveredEntries.remove(id) == null) {
+                return;
+            }
+            compact = ++endsSinceCompaction >= COMPACTION_THRESHOLD;
+            if (compact) {
+                endsSinceCompaction = 0;
+            }
+        }
+        String line = END + SEPARATOR + id + "\n";
+        execute(() -> {
+            append(line);
+            if (compact) {
+                compact();
+            }
+        });
+    }
+
+    /**
+     * @return the entries left open by previous processes; call it on the journal thread
+     */
+    synchronized List<Entry> getRecoveredEntries() {
+        return new ArrayList<>(recoveredEntries.values());
+    }
+
+    /**
+     * Attaches a result that arrived without a waiting caller to the recovered entry it belongs
+     * to; call it on the journal thread. Such a result comes from an activity the previous process
+     * launched, so it only matches that process's entries, i.e. the session of the most recently
+     * started recovered entry. A process has at most one payment activity per request code open,
+     * so more than one match means the journal cannot tell them apart and nothing is attached.
+     *
+     * @return whether the result was attached
+     */
+    synchronized boolean attachLateResult(int requestCode, PaymentResult result) {
+        Entry latest = null;
+        for (Entry entry : recoveredEntries.values()) {
+            if (latest == null || entry.startedAt >= latest.startedAt) {
+                latest = entry;
+            }
+        }
+        if (latest == null) {
+            return false;
+        }
+        Entry match = null;
+        for (Entry entry : recoveredEntries.values()) {
+            if (entry.requestCode == requestCode && sameSession(entry, latest)) {
+                if (match != null) {
+                    return false;
+                }
+                match = entry;
+            }
+        }
+        if (match == null || match.lateResult != null) {
+            return false;
+        }
+        match.lateResult = result.orderReference(match.orderReference);
+        return true;
+    }
+
+    private static boolean sameSession(Entry entry, Entry other) {
+        return entry.session == null ? other.session == null : entry.session.equals(other.session);
+    }
+
+    private void readEntries() {
+        String content;
+        try {
+            content = new String(file.readFully(), UTF_8);
+        } catch (FileNotFoundException e) {
+            // No journal yet
+            return;
+        } catch (IOException e) {
+            // Compacting now would lose the entries that could not be read; the next instance
+            // tries again
+            return;
+        }
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        int lineStart = 0;
+        int lineEnd;
+        // A trailing segment without its newline is a torn write and is left out
+        while ((lineEnd = content.indexOf('\n', lineStart)) >= 0) {
+            readLine(content.substring(lineStart, lineEnd), entries);
+            lineStart = lineEnd + 1;
+        }
+        synchronized (this) {
+            recoveredEntries.putAll(entries);
+        }
+        tornTail = lineStart < content.length();
+        compact();
+    }
+
+    private static void readLine(String line, Map<String, Entry> entries) {
+        String[] fields = line.split(SEPARATOR, -1);
+        if (BEGIN.equals(fields[0]) && (fields.length == BEGIN_FIELDS || fields.length == LEGACY_BEGIN_FIELDS)) {
+            try {
+                String session = fields.length == BEGIN_FIELDS ? fields[6] : null;
+                entries.put(fields[1], new Entry(fields[1], session, emptyToNull(fields[2]), fields[3],
+                        Integer.parseInt(fields[4]), Long.parseLong(fields[5])));
+            } catch (NumberFormatException e) {
+                // Corrupt line
+            }
+        } else if (END.equals(fields[0]) && fields.length == 2) {
+            entries.remove(fields[1]);
+        }
+    }
+
+    /**
+     * Appends whole lines and syncs them, so a crash can at most tear the line being written,
+     * which the next read skips.
+     */
+    private void append(String lines) {
+        try (FileOutputStream out = new FileOutputStream(file.getBaseFile(), true)) {
+            // Ends the torn line, so it stays unreadable on its own
+            out.write((tornTail ? "\n" + lines : lines).getBytes(UTF_8));
+            out.getFD().sync();
+            tornTail = false;
+        } catch (IOException e) {
+            // The journal is best effort; payments do not depend on it
+        }
+    }
+
+    /**
+     * Rewrites the file with only the open and recovered entries.
+     */
+    private void compact() {
+        StringBuilder content = new StringBuilder();
+        synchronized (this) {
+            for (Entry entry : recoveredEntries.values()) {
+                appendBegin(content, entry);
+            }
+            for (Entry entry : openEntries.values()) {
+                appendBegin(content, entry);
+            }
+        }
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(content.toString().getBytes(UTF_8));
+            file.finishWrite(out);
+            tornTail = false;
+        } catch (IOException e) {
+            if (out != null) {
+                file.failWrite(out);
+            }
+        }
+    }
+
+    private static void appendBegin(StringBuilder content, Entry entry) {
+        content.append(BEGIN).append(SEPARATOR).append(entry.id)
+                .append(SEPARATOR).append(sanitize(entry.orderReference))
+                .append(SEPARATOR).append(sanitize(entry.flow))
+                .append(SEPARATOR).append(entry.requestCode)
+                .append(SEPARATOR).append(entry.startedAt);
+        if (entry.session != null) {
+            content.append(SEPARATOR).append(entry.session);
+        }
+        content.append('\n');
+    }
+
+    private static String sanitize(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ');
+    }
+
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,97 @@
+package ae.network;
+
+import android.app.Activity;
+import android.content.Intent;
+
+import payment.sdk.android.cardpayment.CardPaymentRequest;
+import payment.sdk.android.core.Order;
+import payment.sdk.android.core.PaymentResponse;
+
+/**
+ * The boundary between {@link NiSdkModule} and the payment SDKs: starts the payment UIs, reads
+ * what they return and probes wallet availability. The module keeps everything else, i.e.
+ * parsing orders, the pending operations, the journal, metrics and events.
+ *
+ * By default the module uses the payment-sdk, Google Pay and Samsung Pay SDKs. Passing another
+ * launcher to {@link NiSdkPackage#NiSdkPackage(PaymentLauncher)}, e.g. a fake in a load test,
+ * drives the module without wallets or a gateway.
+ */
+public interface PaymentLauncher {
+
+    /**
+     * Receives the results of the flows that return through onActivityResult, identified by the
+     * request code they were launched with.
+     */
+    interface ResultListener {
+        /**
+         * A card payment or 3DS flow finished.
+         *
+         * @param statusCode one of the CardPaymentData.STATUS_* codes
+         */
+        void onCardPaymentResult(int requestCode, int statusCode, String reason);
+
+        /**
+         * Google Pay returned the PaymentData JSON of the payment.
+         */
+        void onGooglePayResult(int requestCode, String paymentDataJson);
+
+        void onCancelled(int requestCode);
+
+        void onFailed(int requestCode, String message);
+    }
+
+    interface SamsungPayListener {
+        void onSuccess();
+
+        void onFailure(String message);
+    }
+
+    interface AvailabilityListener {
+        /**
+         * @param available null if availability could not be determined
+         */
+        void onResult(Boolean available);
+    }
+
+    /**
+     * Called by the module when it is created; later results go to the new listener. Set to null
+     * when the module is released, after which results are dropped.
+     */
+    void setResultListener(ResultListener listener);
+
+    /**
+     * The result of an activity started by launchCardPayment or launchThreeDSTwo, as received by
+     * the module.
+     */
+    void onCardPaymentActivityResult(int requestCode, int resultCode, Intent data);
+
+    /**
+     * The result of an activity started by launchGooglePay, as received by the module.
+     */
+    void onGooglePayActivityResult(int requestCode, int resultCode, Intent data);
+
+    void launchCardPayment(Activity activity, CardPaymentRequest cardPaymentRequest, int requestCode);
+
+    void launchThreeDSTwo(Activity activity, PaymentResponse paymentResponse, int requestCode);
+
+    /**
+     * @param environment "TEST" or "PRODUCTION"
+     * @throws RuntimeException if the payment sheet cannot be shown
+     */
+    void launchGooglePay(Activity activity, String environment, String paymentDataRequestJson, int requestCode);
+
+    /**
+     * @throws RuntimeException if the payment sheet cannot be shown
+     */
+    void launchSamsungPay(Activity activity, Order order, String merchantName, String serviceId,
+                          SamsungPayListener listener);
+
+    void isGooglePayReady(String environment, String isReadyToPayRequestJson, AvailabilityListener listener);
+
+    void isSamsungPayEnabled(Activity activity, String serviceId, AvailabilityListener listener);
+
+    /**
+     * Drops the clients bound to the host activity, which is being destroyed.
+     */
+    void releaseClients();
+}
@@ -0,0 +1,177 @@
+package ae.network;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import payment.sdk.android.cardpayment.CardPaymentData;
+
+/**
+ * Outcome of a payment flow. Promise-based methods resolve with {@link #toWritableMap()}; the
+ * callback-based methods keep receiving the bare status string via {@link #toCallbackArguments()}.
+ */
+class PaymentResult {
+
+    static final String STATUS_SUCCESS = "Success";
+    static final String STATUS_FAILED = "Failed";
+    static final String STATUS_ABORTED = "Aborted";
+
+    static final String ERROR_ACTIVITY_UNAVAILABLE = "ACTIVITY_UNAVAILABLE";
+    static final String ERROR_INVALID_ORDER = "INVALID_ORDER";
+    static final String ERROR_INVALID_CONFIG = "INVALID_CONFIG";
+    static final String ERROR_PAYMENT_FAILED = "PAYMENT_FAILED";
+    static final String ERROR_USER_CANCELLED = "USER_CANCELLED";
+    static final String ERROR_IN_PROGRESS = "PAYMENT_IN_PROGRESS";
+    static final String ERROR_HANDLE_EXPIRED = "HANDLE_EXPIRED";
+    static final String ERROR_WALLET = "WALLET_ERROR";
+    static final String ERROR_PARSE = "PARSE_ERROR";
+    static final String ERROR_NETWORK = "NETWORK_ERROR";
+    static final String ERROR_HTTP = "HTTP_ERROR";
+    static final String ERROR_RELEASED = "MODULE_RELEASED";
+    static final String ERROR_RESULT_LOST = "RESULT_LOST";
+
+    private final String status;
+    private Integer code;
+    private String orderReference;
+    private String paymentReference;
+    private String paymentState;
+    private String reason;
+    private String errorCode;
+    private String errorMessage;
+    private String token;
+    private String cardNetwork;
+    private String cardDetails;
+
+    private PaymentResult(String status) {
+        this.status = status;
+    }
+
+    static PaymentResult success() {
+        return new PaymentResult(STATUS_SUCCESS);
+    }
+
+    static PaymentResult failed(String errorCode, String errorMessage) {
+        PaymentResult result = new PaymentResult(STATUS_FAILED);
+        result.errorCode = errorCode;
+        result.errorMessage = errorMessage;
+        return result;
+    }
+
+    static PaymentResult aborted(String errorCode, String errorMessage) {
+        PaymentResult result = new PaymentResult(STATUS_ABORTED);
+        result.errorCode = errorCode;
+        result.errorMessage = errorMessage;
+        return result;
+    }
+
+    /**
+     * Maps the result the payment-sdk card activity returns: a CardPaymentData.STATUS_* code and
+     * the reason the SDK gave. The payment state and reason are passed on as reported, so callers
+     * know the outcome without fetching the order again.
+     */
+    static PaymentResult fromCardPaymentStatus(int statusCode, String reason) {
+        PaymentResult result;
+        switch (statusCode) {
+            case CardPaymentData.STATUS_PAYMENT_AUTHORIZED:
+                result = success();
+                result.paymentState = "AUTHORISED";
+                break;
+            case CardPaymentData.STATUS_PAYMENT_PURCHASED:
+                result = success();
+                result.paymentState = "PURCHASED";
+                break;
+            case CardPaymentData.STATUS_PAYMENT_CAPTURED:
+                result = success();
+                result.paymentState = "CAPTURED";
+                break;
+            case CardPaymentData.STATUS_PAYMENT_FAILED:
+                result = failed(ERROR_PAYMENT_FAILED, reason);
+                result.paymentState = "FAILED";
+                break;
+            case CardPaymentData.STATUS_POST_AUTH_REVIEW:
+                result = failed(ERROR_PAYMENT_FAILED, reason);
+                result.paymentState = "POST_AUTH_REVIEW";
+                break;
+            case CardPaymentData.STATUS_PARTIALLY_AUTHORISED:
+                result = failed(ERROR_PAYMENT_FAILED, reason);
+                result.paymentState = "PARTIALLY_AUTHORISED";
+                break;
+            case CardPaymentData.STATUS_PARTIAL_AUTH_DECLINED:
+                result = failed(ERROR_PAYMENT_FAILED, reason);
+                result.paymentState = "PARTIAL_AUTH_DECLINED";
+                break;
+            case CardPaymentData.STATUS_PARTIAL_AUTH_DECLINE_FAILED:
+                result = failed(ERROR_PAYMENT_FAILED, reason);
+                result.paymentState = "PARTIAL_AUTH_DECLINE_FAILED";
+                break;
+            case CardPaymentData.STATUS_GENERIC_ERROR:
+            default:
+                result = failed(ERROR_PAYMENT_FAILED, reason);
+                break;
+        }
+        result.code = statusCode;
+        result.reason = reason;
+        return result;
+    }
+
+    PaymentResult orderReference(String orderReference) {
+        this.orderReference = orderReference;
+        return this;
+    }
+
+    PaymentResult paymentReference(String paymentReference) {
+        this.paymentReference = paymentReference;
+        return this;
+    }
+
+    PaymentResult token(String token, String cardNetwork, String cardDetails) {
+        this.token = token;
+        this.cardNetwork = cardNetwork;
+        this.cardDetails = cardDetails;
+        return this;
+    }
+
+    String getStatus() {
+        return status;
+    }
+
+    WritableMap toWritableMap() {
+        WritableMap map = Arguments.createMap();
+        map.putString("status", status);
+        if (code != null) {
+            map.putInt("code", code);
+        }
+        map.putString("orderReference", orderReference);
+        map.putString("paymentReference", paymentReference);
+        map.putString("paymentState", paymentState);
+        map.putString("reason", reason);
+        map.putString("errorCode", errorCode);
+        map.putString("errorMessage", errorMessage);
+        if (token != null) {
+            map.putString("token", token);
+            map.putString("cardNetwork", cardNetwork);
+            map.putString("cardDetails", cardDetails);
+        }
+        return map;
+    }
+
+    /**
+     * Arguments in the shape the callback-based methods have always used: the status, then the
+     * token and card info for Google Pay or the error message for failures. Card results
+     * additionally get the full result map as the last argument.
+     */
+    Object[] toCallbackArguments() {
+        if (code != null) {
+            return new Object[]{status, errorMessage, toWritableMap()};
+        }
+        if (token != null) {
+            WritableMap cardInfo = Arguments.createMap();
+            cardInfo.putString("cardNetwork", cardNetwork);
+            cardInfo.putString("cardDetails", cardDetails);
+            return new Object[]{status, token, cardInfo};
+        }
+        if (errorMessage != null) {
+            return new Object[]{status, errorMessage};
+        }
+        return new Object[]{status};
+    }
+}
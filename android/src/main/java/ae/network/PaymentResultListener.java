@@ -0,0 +1,176 @@
+package ae.network;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.Promise;
+
+/**
+ * Receives the result of one payment flow, either through a legacy Callback or a Promise.
+ */
+abstract class PaymentResultListener {
+
+    private String orderReference;
+    private String paymentReference;
+    // When the native module received the call that started the flow
+    private final long receivedAtNanos = System.nanoTime();
+    private FlowMetrics metrics;
+    private PaymentEventEmitter events;
+    private FlowMetrics.Flow flow;
+    private int operationId;
+    private PaymentJournal journal;
+    private String journalEntryId;
+    private boolean completed;
+
+    PaymentResultListener(String orderReference) {
+        this.orderReference = orderReference;
+    }
+
+    /**
+     * Records the launch and result latencies of this flow and reports its steps as events,
+     * tagged with the ID the flow is registered under in the pending operations. Call it before
+     * the listener is handed to another thread.
+     */
+    void track(FlowMetrics metrics, PaymentEventEmitter events, FlowMetrics.Flow flow, int operationId) {
+        this.metrics = metrics;
+        this.events = events;
+        this.flow = flow;
+        this.operationId = operationId;
+    }
+
+    int getOperationId() {
+        return operationId;
+    }
+
+    /**
+     * Sets the journal entry recording this flow as in flight; it is closed with the result.
+     */
+    void setJournalEntry(PaymentJournal journal, String journalEntryId) {
+        this.journal = journal;
+        this.journalEntryId = journalEntryId;
+    }
+
+    /**
+     * Leaves the journal entry open when the flow completes, for a flow given up on while its
+     * result may still arrive; getPendingPayments then reports it for reconciliation.
+     */
+    void keepJournalEntry() {
+        this.journal = null;
+        this.journalEntryId = null;
+    }
+
+    FlowMetrics.Flow getFlow() {
+        return flow;
+    }
+
+    /**
+     * Called once the payment UI has been launched.
+     *
+     * @param eventType the event reported to JS, e.g. PaymentEventEmitter.ACTIVITY_LAUNCHED
+     */
+    void launched(String eventType) {
+        if (metrics != null) {
+            metrics.recordLaunch(flow, System.nanoTime() - receivedAtNanos);
+        }
+        emit(eventType, null);
+    }
+
+    /**
+     * Called when the payment activity has returned its result, before it is parsed.
+     */
+    void returnedToApp() {
+        emit(PaymentEventEmitter.RETURNED_TO_APP, null);
+    }
+
+    private void emit(String eventType, String status) {
+        if (events != null) {
+            events.emit(eventType, operationId, flow, orderReference, status);
+        }
+    }
+
+    String getOrderReference() {
+        return orderReference;
+    }
+
+    /**
+     * Sets the reference of the order's payment, reported with the result.
+     */
+    void setPaymentReference(String paymentReference) {
+        this.paymentReference = paymentReference;
+    }
+
+    /**
+     * Sets the order reference once it is known, for flows that start before the order is parsed.
+     */
+    void setOrderReference(String orderReference) {
+        this.orderReference = orderReference;
+    }
+
+    /**
+     * Delivers the result. Later calls are ignored, as a JS callback or promise can only be
+     * settled once.
+     */
+    final void complete(PaymentResult result) {
+        synchronized (this) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+        }
+        if (metrics != null) {
+            metrics.recordResult(flow, result.getStatus(), System.nanoTime() - receivedAtNanos);
+        }
+        if (journal != null) {
+            journal.end(journalEntryId);
+        }
+        onResult(result.orderReference(orderReference).paymentReference(paymentReference));
+        emit(PaymentEventEmitter.RESULT_PARSED, result.getStatus());
+    }
+
+    abstract void onResult(PaymentResult result);
+
+    static PaymentResultListener forCallback(Callback callback, String orderReference) {
+        return new CallbackListener(callback, orderReference);
+    }
+
+    /**
+     * The promise is always resolved, also for failed and aborted payments; the status in the
+     * result map tells them apart.
+     */
+    static PaymentResultListener forPromise(Promise promise, String orderReference) {
+        return new PromiseListener(promise, orderReference);
+    }
+
+    // The JS callback or promise is dropped once settled, so a listener still referenced by an
+    // SDK callback or a launch task does not keep it, and what it captured, alive.
+
+    private static final class CallbackListener extends PaymentResultListener {
+        private Callback callback;
+
+        CallbackListener(Callback callback, String orderReference) {
+            super(orderReference);
+            this.callback = callback;
+        }
+
+        @Override
+        void onResult(PaymentResult result) {
+            Callback callback = this.callback;
+            this.callback = null;
+            callback.invoke(result.toCallbackArguments());
+        }
+    }
+
+    private static final class PromiseListener extends PaymentResultListener {
+        private Promise promise;
+
+        PromiseListener(Promise promise, String orderReference) {
+            super(orderReference);
+            this.promise = promise;
+        }
+
+        @Override
+        void onResult(PaymentResult result) {
+            Promise promise = this.promise;
+            this.promise = null;
+            promise.resolve(result.toWritableMap());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package ae.network;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe table of operations waiting for a result. Operations are registered when the
+ * payment UI is launched and results arrive from activity results or SDK callbacks; each
+ * operation is handed out by {@link #take(int)} at most once, so a result can never be delivered
+ * twice or to a caller it was not meant for.
+ *
+ * Flows that finish in onActivityResult can only be identified by their request code, so an
+ * operation can additionally be bound to one. Only one operation per request code can be in flight;
+ * binding a second one fails until the first has received its result, or until its binding has
+ * been released because the activity its result was due to went away.
+ */
+class PendingOperations<T> {
+
+    private final AtomicInteger nextOperationId = new AtomicInteger();
+    private final ConcurrentHashMap<Integer, T> operations = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Integer> activityOperations = new ConcurrentHashMap<>();
+    // Bound operations a new launch on the same request code may take over
+    private final Set<Integer> releasedOperations = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return an ID for an operation registered later with {@link #register(int, Object)}, so
+     * that the flow can be tagged with it from the start
+     */
+    int newOperationId() {
+        return nextOperationId.incrementAndGet();
+    }
+
+    /**
+     * Registers the listener under an ID from {@link #newOperationId()}.
+     */
+    void register(int operationId, T listener) {
+        operations.put(operationId, listener);
+    }
+
+    /**
+     * @return the ID of the new operation
+     */
+    int register(T listener) {
+        int operationId = newOperationId();
+        register(operationId, listener);
+        return operationId;
+    }
+
+    /**
+     * Binds an operation to the activity result with the given request code. Results can only be
+     * routed by request code, so the code stays bound to the operation until its result is taken.
+     *
+     * @return false if another operation still waiting for its result is bound to the request code
+     */
+    boolean bindActivityResult(int requestCode, int operationId) {
+        Integer boundOperationId;
+        while ((boundOperationId = activityOperations.putIfAbsent(requestCode, operationId)) != null) {
+            if (operations.containsKey(boundOperationId)) {
+                return false;
+            }
+            // The bound operation was completed some other way
+            activityOperations.remove(requestCode, boundOperationId);
+        }
+        return true;
+    }
+
+    /**
+     * Releases the request code if it is still bound to the operation, e.g. when the activity
+     * could not be started.
+     */
+    void unbindActivityResult(int requestCode, int operationId) {
+        activityOperations.remove(requestCode, operationId);
+    }
+
+    /**
+     * Lets new launches take over the request codes bound so far, e.g. when the activity their
+     * results are due to is destroyed. The operations keep waiting: a result that still arrives,
+     * e.g. through the recreated activity, reaches them until another launch takes their code
+     * with {@link #takeReleasedActivityResult(int)}.
+     */
+    void releaseActivityResults() {
+        releasedOperations.addAll(activityOperations.values());
+    }
+
+    /**
+     * Removes and returns the listener of the operation bound to the request code if its binding
+     * has been released, so that a new launch can bind the code.
+     *
+     * @return the listener, or null if the code is free or bound to an operation still waiting
+     */
+    T takeReleasedActivityResult(int requestCode) {
+        Integer operationId = activityOperations.get(requestCode);
+        if (operationId == null || !releasedOperations.contains(operationId)
+                || !activityOperations.remove(requestCode, operationId)) {
+            return null;
+        }
+        return take(operationId);
+    }
+
+    /**
+     * Removes and returns the listener of the operation bound to the request code, or null if
+     * there is none or it was already completed.
+     */
+    T takeActivityResult(int requestCode) {
+        Integer operationId = activityOperations.remove(requestCode);
+        return operationId != null ? take(operationId) : null;
+    }
+
+    /**
+     * Removes and returns the listener of the operation, or null if it was already completed.
+     */
+    T take(int operationId) {
+        releasedOperations.remove(operationId);
+        return operations.remove(operationId);
+    }
+
+    /**
+     * Drops all operations without completing them.
+     */
+    void clear() {
+        operations.clear();
+        activityOperations.clear();
+        releasedOperations.clear();
+    }
+}
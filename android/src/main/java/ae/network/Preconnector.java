@@ -0,0 +1,100 @@
+package ae.network;
+
+import android.os.SystemClock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Opens connections to the gateway API hosts of an order before the payment-sdk calls them. A
+ * HEAD request through HttpURLConnection resolves DNS, completes the TLS handshake and leaves the
+ * connection in the platform's shared keep-alive pool, which the payment-sdk's own API requests
+ * go through; the TLS session is cached process-wide for resumption as well.
+ *
+ * This does not warm the WebView that shows 3DS challenge and ACS pages; it has its own network
+ * stack. Each origin gets at most one request per keep-alive period.
+ */
+class Preconnector {
+
+    private static final int TIMEOUT_MILLIS = 10_000;
+    // The platform keeps idle connections for five minutes, so within that time an origin
+    // connected to before is not requested again
+    private static final long RECENT_MILLIS = 5 * 60 * 1000;
+
+    private final Map<String, Long> lastConnected = new ConcurrentHashMap<>();
+    // Kept apart from the payment executor so slow handshakes never delay a payment
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "NiSdkPreconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    void preconnect(Collection<String> urls) {
+        long now = SystemClock.elapsedRealtime();
+        for (String url : urls) {
+            String origin = getHttpsOrigin(url);
+            if (origin == null) {
+                continue;
+            }
+            Long connectedAt = lastConnected.get(origin);
+            if (connectedAt != null && now - connectedAt < RECENT_MILLIS) {
+                continue;
+            }
+            lastConnected.put(origin, now);
+            try {
+                executor.execute(() -> connect(origin));
+            } catch (RejectedExecutionException e) {
+                // Shut down
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops the connection thread; later preconnect calls do nothing.
+     */
+    void shutdown() {
+        executor.shutdownNow();
+        lastConnected.clear();
+    }
+
+    private static String getHttpsOrigin(String url) {
+        try {
+            URL parsed = new URL(url);
+            if (!"https".equals(parsed.getProtocol())) {
+                return null;
+            }
+            return parsed.getPort() != -1
+                    ? "https://" + parsed.getHost() + ":" + parsed.getPort()
+                    : "https://" + parsed.getHost();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void connect(String origin) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(origin + "/").openConnection();
+            connection.setRequestMethod("HEAD");
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            // Any status will do; closing the (empty) body returns the connection to the pool
+            // whereas disconnect() would close it
+            InputStream body = connection.getResponseCode() < 400
+                    ? connection.getInputStream() : connection.getErrorStream();
+            if (body != null) {
+                body.close();
+            }
+        } catch (IOException e) {
+            // Best effort; the payment UI connects as usual
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ae.network;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Payments prepared ahead of the user tapping Pay, handed to JS as opaque handles. Handles stay
+ * valid across retries; once more than the capacity are held, the least recently used is evicted.
+ */
+class PreparedPaymentCache<T> {
+
+    private final AtomicInteger nextHandle = new AtomicInteger();
+    // Guarded by this
+    private final LinkedHashMap<String, T> payments;
+
+    PreparedPaymentCache(final int capacity) {
+        this.payments = new LinkedHashMap<String, T>(capacity + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the handle of the prepared payment
+     */
+    synchronized String put(T payment) {
+        String handle = "prepared-" + nextHandle.incrementAndGet();
+        payments.put(handle, payment);
+        return handle;
+    }
+
+    /**
+     * @return the prepared payment, or null if the handle is unknown or was evicted
+     */
+    synchronized T get(String handle) {
+        return payments.get(handle);
+    }
+
+    synchronized void clear() {
+        payments.clear();
+    }
+}
@@ -0,0 +1,16 @@
+package ae.network;
+
+import payment.sdk.android.PaymentClient;
+import payment.sdk.android.core.Order;
+
+/**
+ * Samsung Pay integration of the module. It lives in the optional samsungpay source set, which
+ * brings in payment-sdk-samsungpay, and is found at runtime through {@link WalletProviders}.
+ */
+interface SamsungPayProvider {
+
+    void isSamsungPayEnabled(PaymentClient paymentClient, PaymentLauncher.AvailabilityListener listener);
+
+    void launchSamsungPay(PaymentClient paymentClient, Order order, String merchantName,
+                          PaymentLauncher.SamsungPayListener listener);
+}
@@ -0,0 +1,144 @@
+package ae.network;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.Intent;
+
+import payment.sdk.android.cardpayment.CardPaymentData;
+import payment.sdk.android.cardpayment.CardPaymentRequest;
+import payment.sdk.android.core.Order;
+import payment.sdk.android.core.PaymentResponse;
+
+/**
+ * The default {@link PaymentLauncher}: card payments and 3DS through payment-sdk, the wallets
+ * through whichever of the optional integrations the app was built with.
+ */
+class SdkPaymentLauncher implements PaymentLauncher {
+
+    private static final String GOOGLE_PAY_MISSING_MESSAGE = "Google Pay is not included in this app";
+    private static final String SAMSUNG_PAY_MISSING_MESSAGE = "Samsung Pay is not included in this app";
+
+    private final Context context;
+    // payment-sdk clients of the current host activity
+    private final PaymentClientCache sdkPaymentClients = new PaymentClientCache();
+    private volatile ResultListener resultListener;
+    // Optional wallet integrations, loaded on first use; null if the app was built without them.
+    // All guarded by this.
+    private GooglePayProvider googlePayProvider;
+    private SamsungPayProvider samsungPayProvider;
+    private boolean googlePayProviderLoaded;
+    private boolean samsungPayProviderLoaded;
+
+    SdkPaymentLauncher(Context context) {
+        this.context = context;
+    }
+
+    private synchronized GooglePayProvider getGooglePayProvider() {
+        if (!googlePayProviderLoaded) {
+            googlePayProvider = WalletProviders.loadGooglePayProvider(context);
+            googlePayProviderLoaded = true;
+        }
+        return googlePayProvider;
+    }
+
+    private synchronized SamsungPayProvider getSamsungPayProvider() {
+        if (!samsungPayProviderLoaded) {
+            samsungPayProvider = WalletProviders.loadSamsungPayProvider();
+            samsungPayProviderLoaded = true;
+        }
+        return samsungPayProvider;
+    }
+
+    @Override
+    public void setResultListener(ResultListener listener) {
+        this.resultListener = listener;
+    }
+
+    @Override
+    public void onCardPaymentActivityResult(int requestCode, int resultCode, Intent data) {
+        ResultListener listener = resultListener;
+        if (listener == null) {
+            // Released
+            return;
+        }
+        if (resultCode == Activity.RESULT_OK) {
+            CardPaymentData cardPaymentData = CardPaymentData.getFromIntent(data);
+            listener.onCardPaymentResult(requestCode, cardPaymentData.getCode(), cardPaymentData.getReason());
+        } else if (resultCode == Activity.RESULT_CANCELED) {
+            // User aborted
+            listener.onCancelled(requestCode);
+        } else {
+            listener.onFailed(requestCode, null);
+        }
+    }
+
+    @Override
+    public void onGooglePayActivityResult(int requestCode, int resultCode, Intent data) {
+        ResultListener listener = resultListener;
+        if (listener == null) {
+            // Released
+            return;
+        }
+        GooglePayProvider provider = getGooglePayProvider();
+        if (provider == null) {
+            listener.onFailed(requestCode, GOOGLE_PAY_MISSING_MESSAGE);
+            return;
+        }
+        provider.readPaymentResult(requestCode, resultCode, data, listener);
+    }
+
+    @Override
+    public void launchCardPayment(Activity activity, CardPaymentRequest cardPaymentRequest, int requestCode) {
+        sdkPaymentClients.get(activity, "").launchCardPayment(cardPaymentRequest, requestCode);
+    }
+
+    @Override
+    public void launchThreeDSTwo(Activity activity, PaymentResponse paymentResponse, int requestCode) {
+        sdkPaymentClients.get(activity, "").executeThreeDS(paymentResponse, requestCode);
+    }
+
+    @Override
+    public void launchGooglePay(Activity activity, String environment, String paymentDataRequestJson,
+                                int requestCode) {
+        GooglePayProvider provider = getGooglePayProvider();
+        if (provider == null) {
+            throw new IllegalStateException(GOOGLE_PAY_MISSING_MESSAGE);
+        }
+        provider.loadPaymentData(activity, environment, paymentDataRequestJson, requestCode);
+    }
+
+    @Override
+    public void launchSamsungPay(Activity activity, Order order, String merchantName, String serviceId,
+                                 SamsungPayListener listener) {
+        SamsungPayProvider provider = getSamsungPayProvider();
+        if (provider == null) {
+            throw new IllegalStateException(SAMSUNG_PAY_MISSING_MESSAGE);
+        }
+        provider.launchSamsungPay(sdkPaymentClients.get(activity, serviceId), order, merchantName, listener);
+    }
+
+    @Override
+    public void isGooglePayReady(String environment, String isReadyToPayRequestJson, AvailabilityListener listener) {
+        GooglePayProvider provider = getGooglePayProvider();
+        if (provider == null) {
+            listener.onResult(false);
+            return;
+        }
+        provider.isReadyToPay(environment, isReadyToPayRequestJson, listener);
+    }
+
+    @Override
+    public void isSamsungPayEnabled(Activity activity, String serviceId, AvailabilityListener listener) {
+        SamsungPayProvider provider = getSamsungPayProvider();
+        if (provider == null) {
+            listener.onResult(false);
+            return;
+        }
+        provider.isSamsungPayEnabled(sdkPaymentClients.get(activity, serviceId), listener);
+    }
+
+    @Override
+    public void releaseClients() {
+        sdkPaymentClients.clear();
+    }
+}
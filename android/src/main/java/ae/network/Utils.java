@@ -1,115 +1,290 @@
 package ae.network;
 
+import android.net.Uri;
+
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import payment.sdk.android.cardpayment.CardPaymentRequest;
 import payment.sdk.android.core.Order;
 import payment.sdk.android.core.PaymentResponse;
 
+/**
+ * Converts the order and payment responses passed from JS into payment-sdk models.
+ *
+ * Every lookup on a ReadableNativeMap is a JNI call, so the models are built in one pass over the
+ * keys of each map, switching once on the type of every key that is used instead of checking
+ * hasKey and isNull before each read. Sections the SDK can do without are optional; missing
+ * required fields fail with an IllegalArgumentException naming the key.
+ */
 public class Utils {
-    private static PaymentResponse.Href getHrefFromLinks(ReadableMap linksMap, String urlKey) {
-        PaymentResponse.Href href = new PaymentResponse.Href();
-        ReadableMap urlMap = linksMap.getMap(urlKey);
-        if (urlMap != null) {
-            href.setHref(urlMap.getString("href"));
-            return href;
+    static String getOptionalString(ReadableMap map, String key) {
+        return map != null && map.hasKey(key) ? asString(map, key) : null;
+    }
+
+    static ReadableMap getOptionalMap(ReadableMap map, String key) {
+        return map != null && map.hasKey(key) ? asMap(map, key) : null;
+    }
+
+    private static ReadableArray getOptionalArray(ReadableMap map, String key) {
+        return map != null && map.hasKey(key) ? asArray(map, key) : null;
+    }
+
+    private static ReadableMap getRequiredMap(ReadableMap map, String key) {
+        ReadableMap value = getOptionalMap(map, key);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + key);
         }
-        return null;
+        return value;
     }
 
-    public static PaymentResponse buildPaymentResponseFromReadableMap(ReadableMap paymentResponseMap) {
-        PaymentResponse paymentResponse = new PaymentResponse();
-        paymentResponse.setOrderReference(paymentResponseMap.getString("orderReference"));
-        paymentResponse.setAuthenticationCode(paymentResponseMap.getString("authenticationCode"));
-        paymentResponse.setOutletId(paymentResponseMap.getString("outletId"));
-        paymentResponse.setReference(paymentResponseMap.getString("reference"));
-
-        ReadableMap linksMap = paymentResponseMap.getMap("_links");
-        if (linksMap != null) {
-            PaymentResponse.Links links = new PaymentResponse.Links();
-            links.setPaymentAuthorizationUrl(getHrefFromLinks(linksMap, "self"));
-            links.setPaymentUrl(getHrefFromLinks(linksMap, "self"));
-            links.setThreeDSAuthenticationsUrl(getHrefFromLinks(linksMap, "cnp:3ds2-authentication"));
-            links.setThreeDSChallengeResponseUrl(getHrefFromLinks(linksMap, "cnp:3ds2-challenge-response"));
-            paymentResponse.setLinks(links);
-        }
-
-        ReadableMap threeDSTwoMap = paymentResponseMap.getMap("3ds2");
-        if(threeDSTwoMap != null) {
-            PaymentResponse.ThreeDSTwo threeDSTwo = new PaymentResponse.ThreeDSTwo();
-            threeDSTwo.setMessageVersion(threeDSTwoMap.getString("messageVersion"));
-            threeDSTwo.setThreeDSMethodURL(threeDSTwoMap.getString("threeDSMethodURL"));
-            threeDSTwo.setThreeDSServerTransID(threeDSTwoMap.getString("threeDSServerTransID"));
-            threeDSTwo.setDirectoryServerID(threeDSTwoMap.getString("directoryServerID"));
-            paymentResponse.setThreeDSTwo(threeDSTwo);
+    /**
+     * Reads a key that is known to be present, e.g. found while iterating the map; null and
+     * values of other types read as null.
+     */
+    private static String asString(ReadableMap map, String key) {
+        return map.getType(key) == ReadableType.String ? map.getString(key) : null;
+    }
+
+    private static ReadableMap asMap(ReadableMap map, String key) {
+        return map.getType(key) == ReadableType.Map ? map.getMap(key) : null;
+    }
+
+    private static ReadableArray asArray(ReadableMap map, String key) {
+        return map.getType(key) == ReadableType.Array ? map.getArray(key) : null;
+    }
+
+    /**
+     * @return the href of a link object, or null if the link is missing
+     */
+    private static String getHref(ReadableMap linkMap) {
+        return getOptionalString(linkMap, "href");
+    }
+
+    /**
+     * @return the href of the link with the given key, or null if the link is missing
+     */
+    private static String getOptionalHref(ReadableMap linksMap, String linkKey) {
+        return getHref(getOptionalMap(linksMap, linkKey));
+    }
+
+    private static List<String> getStringList(ReadableArray array) {
+        int size = array != null ? array.size() : 0;
+        List<String> values = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (array.getType(i) == ReadableType.String) {
+                values.add(array.getString(i));
+            }
         }
+        return values;
+    }
 
-        return paymentResponse;
+    private static PaymentResponse.Href toPaymentResponseHref(String url) {
+        if (url == null) {
+            return null;
+        }
+        PaymentResponse.Href href = new PaymentResponse.Href();
+        href.setHref(url);
+        return href;
     }
 
-    public static Order constructOrderFromReadableMap(ReadableMap orderMap) {
-        Order order = new Order();
+    private static Order.Href toOrderHref(String url) {
+        Order.Href href = new Order.Href();
+        href.setHref(url);
+        return href;
+    }
 
-        // Outlet and referenceID
-        order.setOutletId(orderMap.getString("outletId"));
-        order.setReference(orderMap.getString("reference"));
+    /**
+     * @return the gateway API URLs the payment-sdk calls for an order or payment response: the
+     * payment-authorization and 3DS2 authentication links. The pay page and 3DS method URLs are
+     * left out; they are only ever loaded in a WebView.
+     */
+    static List<String> getConnectionUrls(ReadableMap orderOrPaymentResponse) {
+        List<String> urls = new ArrayList<>();
+        ReadableMap linksMap = getOptionalMap(orderOrPaymentResponse, "_links");
+        for (String linkKey : new String[]{"payment-authorization", "cnp:3ds2-authentication"}) {
+            String href = getOptionalHref(linksMap, linkKey);
+            if (href != null) {
+                urls.add(href);
+            }
+        }
+        return urls;
+    }
 
-        // Need to revisit this and add a builder to make it look better
-        Order.Amount amount = new Order.Amount();
-        amount.setCurrencyCode(orderMap.getMap("amount").getString("currencyCode"));
-        // payment-sdk-core 5.x changed Order.Amount.setValue to take a Double
-        // (was int-compatible in 3.0.x); cast so the int amount autoboxes correctly.
-        amount.setValue((double) orderMap.getMap("amount").getInt("value"));
-        order.setAmount(amount);
+    /**
+     * @return the reference of the order's (first) embedded payment, or null if there is none
+     */
+    static String getPaymentReference(ReadableMap orderMap) {
+        ReadableArray paymentsArray = getOptionalArray(getOptionalMap(orderMap, "_embedded"), "payment");
+        if (paymentsArray == null || paymentsArray.size() == 0 || paymentsArray.getType(0) != ReadableType.Map) {
+            return null;
+        }
+        return getOptionalString(paymentsArray.getMap(0), "reference");
+    }
 
-        // Set links
-        Order.Links links = new Order.Links();
+    public static PaymentResponse buildPaymentResponseFromReadableMap(ReadableMap paymentResponseMap) {
+        PaymentResponse paymentResponse = new PaymentResponse();
+        ReadableMapKeySetIterator keys = paymentResponseMap.keySetIterator();
+        while (keys.hasNextKey()) {
+            String key = keys.nextKey();
+            switch (key) {
+                case "orderReference":
+                    paymentResponse.setOrderReference(asString(paymentResponseMap, key));
+                    break;
+                case "authenticationCode":
+                    paymentResponse.setAuthenticationCode(asString(paymentResponseMap, key));
+                    break;
+                case "outletId":
+                    paymentResponse.setOutletId(asString(paymentResponseMap, key));
+                    break;
+                case "reference":
+                    paymentResponse.setReference(asString(paymentResponseMap, key));
+                    break;
+                case "_links":
+                    ReadableMap linksMap = asMap(paymentResponseMap, key);
+                    if (linksMap != null) {
+                        paymentResponse.setLinks(toPaymentResponseLinks(linksMap));
+                    }
+                    break;
+                case "3ds2":
+                    ReadableMap threeDSTwoMap = asMap(paymentResponseMap, key);
+                    if (threeDSTwoMap != null) {
+                        paymentResponse.setThreeDSTwo(toThreeDSTwo(threeDSTwoMap));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return paymentResponse;
+    }
+
+    private static PaymentResponse.Links toPaymentResponseLinks(ReadableMap linksMap) {
+        PaymentResponse.Links links = new PaymentResponse.Links();
+        ReadableMapKeySetIterator keys = linksMap.keySetIterator();
+        while (keys.hasNextKey()) {
+            String key = keys.nextKey();
+            switch (key) {
+                case "self":
+                    PaymentResponse.Href selfHref = toPaymentResponseHref(getHref(asMap(linksMap, key)));
+                    links.setPaymentAuthorizationUrl(selfHref);
+                    links.setPaymentUrl(selfHref);
+                    break;
+                case "cnp:3ds2-authentication":
+                    links.setThreeDSAuthenticationsUrl(toPaymentResponseHref(getHref(asMap(linksMap, key))));
+                    break;
+                case "cnp:3ds2-challenge-response":
+                    links.setThreeDSChallengeResponseUrl(toPaymentResponseHref(getHref(asMap(linksMap, key))));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return links;
+    }
 
-        Order.Href paymentHref = new Order.Href();
-        Order.Href paymentAuthHref = new Order.Href();
+    private static PaymentResponse.ThreeDSTwo toThreeDSTwo(ReadableMap threeDSTwoMap) {
+        PaymentResponse.ThreeDSTwo threeDSTwo = new PaymentResponse.ThreeDSTwo();
+        ReadableMapKeySetIterator keys = threeDSTwoMap.keySetIterator();
+        while (keys.hasNextKey()) {
+            String key = keys.nextKey();
+            switch (key) {
+                case "messageVersion":
+                    threeDSTwo.setMessageVersion(asString(threeDSTwoMap, key));
+                    break;
+                case "threeDSMethodURL":
+                    threeDSTwo.setThreeDSMethodURL(asString(threeDSTwoMap, key));
+                    break;
+                case "threeDSServerTransID":
+                    threeDSTwo.setThreeDSServerTransID(asString(threeDSTwoMap, key));
+                    break;
+                case "directoryServerID":
+                    threeDSTwo.setDirectoryServerID(asString(threeDSTwoMap, key));
+                    break;
+                default:
+                    break;
+            }
+        }
+        return threeDSTwo;
+    }
 
-        paymentHref.setHref(orderMap.getMap("_links").getMap("payment").getString("href"));
-        paymentAuthHref.setHref(orderMap.getMap("_links").getMap("payment-authorization").getString("href"));
+    /**
+     * Builds the request the card payment activity is launched with from the payment links of
+     * the order; the auth code is the code query parameter of the payment link.
+     */
+    static CardPaymentRequest constructCardPaymentRequestFromReadableMap(ReadableMap orderMap) {
+        ReadableMap linksMap = getRequiredMap(orderMap, "_links");
+        return constructCardPaymentRequest(
+                getOptionalHref(linksMap, "payment"), getOptionalHref(linksMap, "payment-authorization"));
+    }
 
-        links.setPaymentAuthorizationUrl(paymentAuthHref);
-        links.setPaymentUrl(paymentHref);
-        order.setLinks(links);
+    static CardPaymentRequest constructCardPaymentRequest(String paymentUrl, String paymentAuthorizationUrl) {
+        if (paymentUrl == null || paymentAuthorizationUrl == null) {
+            throw new IllegalArgumentException("Missing payment links");
+        }
+        return new CardPaymentRequest.Builder()
+                .gatewayUrl(paymentAuthorizationUrl)
+                .code(Uri.parse(paymentUrl).getQueryParameter("code"))
+                .build();
+    }
 
-        // Set PaymentMethods
-        Order.PaymentMethods paymentMethods = new Order.PaymentMethods();
+    public static Order constructOrderFromReadableMap(ReadableMap orderMap) {
+        Order order = new Order();
+        ReadableMap amountMap = null;
+        ReadableMap linksMap = null;
+        ReadableMap paymentMethodsMap = null;
+        ReadableMap embeddedMap = null;
+        ReadableMapKeySetIterator keys = orderMap.keySetIterator();
+        while (keys.hasNextKey()) {
+            String key = keys.nextKey();
+            switch (key) {
+                case "outletId":
+                    order.setOutletId(asString(orderMap, key));
+                    break;
+                case "reference":
+                    order.setReference(asString(orderMap, key));
+                    break;
+                case "amount":
+                    amountMap = asMap(orderMap, key);
+                    break;
+                case "_links":
+                    linksMap = asMap(orderMap, key);
+                    break;
+                case "paymentMethods":
+                    paymentMethodsMap = asMap(orderMap, key);
+                    break;
+                case "_embedded":
+                    embeddedMap = asMap(orderMap, key);
+                    break;
+                default:
+                    break;
+            }
+        }
 
-        ReadableArray cardsArray = orderMap.getMap("paymentMethods").getArray("card");
-        List<String> cards = new ArrayList<>();
-        for (int i = 0; i < cardsArray.size(); i++) {
-            cards.add(cardsArray.getString(i));
+        if (amountMap == null) {
+            throw new IllegalArgumentException("Missing amount");
         }
-        paymentMethods.setCard(cards);
+        order.setAmount(toOrderAmount(amountMap));
 
-        ReadableArray walletsArray = orderMap.getMap("paymentMethods").getArray("wallet");
-        List<String> wallets = new ArrayList<>();
-        for (int i = 0; i < walletsArray.size(); i++) {
-            cards.add(walletsArray.getString(i));
+        if (linksMap == null) {
+            throw new IllegalArgumentException("Missing _links");
         }
-        paymentMethods.setWallet(wallets.toArray(new String[0]));
+        order.setLinks(toOrderLinks(linksMap));
 
-        order.setPaymentMethods(paymentMethods);
+        order.setPaymentMethods(toOrderPaymentMethods(paymentMethodsMap));
 
-        // Set embeddedObject
+        // Set embeddedObject; only Samsung Pay needs the payment link
+        ReadableArray paymentsArray = getOptionalArray(embeddedMap, "payment");
+        ReadableMap paymentMap = paymentsArray != null && paymentsArray.size() > 0
+                && paymentsArray.getType(0) == ReadableType.Map ? paymentsArray.getMap(0) : null;
         Order.PaymentLinks paymentLinks = new Order.PaymentLinks();
-        Order.Href samsungPayHref = new Order.Href();
-        samsungPayHref.setHref(
-                orderMap.getMap("_embedded")
-                        .getArray("payment")
-                        .getMap(0)
-                        .getMap("_links")
-                        .getMap("payment:samsung_pay")
-                        .getString("href")
-        );
-
-        paymentLinks.setSamsungPayLink(samsungPayHref);
+        paymentLinks.setSamsungPayLink(
+                toOrderHref(getOptionalHref(getOptionalMap(paymentMap, "_links"), "payment:samsung_pay")));
 
         Order.Payment payment = new Order.Payment();
         payment.setLinks(paymentLinks);
@@ -119,4 +294,77 @@ public class Utils {
         order.setEmbedded(embedded);
         return order;
     }
+
+    private static Order.Amount toOrderAmount(ReadableMap amountMap) {
+        Order.Amount amount = new Order.Amount();
+        Double value = null;
+        ReadableMapKeySetIterator keys = amountMap.keySetIterator();
+        while (keys.hasNextKey()) {
+            String key = keys.nextKey();
+            switch (key) {
+                case "currencyCode":
+                    amount.setCurrencyCode(asString(amountMap, key));
+                    break;
+                case "value":
+                    // Amounts are in minor units and can exceed the int range, so read them as a double
+                    if (amountMap.getType(key) == ReadableType.Number) {
+                        value = (double) (long) amountMap.getDouble(key);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (value == null) {
+            throw new IllegalArgumentException("Missing amount.value");
+        }
+        amount.setValue(value);
+        return amount;
+    }
+
+    private static Order.Links toOrderLinks(ReadableMap linksMap) {
+        String paymentUrl = null;
+        String paymentAuthorizationUrl = null;
+        ReadableMapKeySetIterator keys = linksMap.keySetIterator();
+        while (keys.hasNextKey()) {
+            String key = keys.nextKey();
+            switch (key) {
+                case "payment":
+                    paymentUrl = getHref(asMap(linksMap, key));
+                    break;
+                case "payment-authorization":
+                    paymentAuthorizationUrl = getHref(asMap(linksMap, key));
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (paymentUrl == null || paymentAuthorizationUrl == null) {
+            throw new IllegalArgumentException("Missing payment links");
+        }
+        Order.Links links = new Order.Links();
+        links.setPaymentAuthorizationUrl(toOrderHref(paymentAuthorizationUrl));
+        links.setPaymentUrl(toOrderHref(paymentUrl));
+        return links;
+    }
+
+    private static Order.PaymentMethods toOrderPaymentMethods(ReadableMap paymentMethodsMap) {
+        ReadableArray cardArray = null;
+        ReadableArray walletArray = null;
+        if (paymentMethodsMap != null) {
+            ReadableMapKeySetIterator keys = paymentMethodsMap.keySetIterator();
+            while (keys.hasNextKey()) {
+                String key = keys.nextKey();
+                if ("card".equals(key)) {
+                    cardArray = asArray(paymentMethodsMap, key);
+                } else if ("wallet".equals(key)) {
+                    walletArray = asArray(paymentMethodsMap, key);
+                }
+            }
+        }
+        Order.PaymentMethods paymentMethods = new Order.PaymentMethods();
+        paymentMethods.setCard(getStringList(cardArray));
+        paymentMethods.setWallet(getStringList(walletArray).toArray(new String[0]));
+        return paymentMethods;
+    }
 }
@@ -0,0 +1,55 @@
+package ae.network;
+
+import android.content.Context;
+
+/**
+ * Finds the optional wallet integrations by class name, so the core module has no link-time
+ * dependency on them. Their classes are only loaded the first time a wallet is used; the
+ * consumer R8 rules keep the names and constructors used here.
+ */
+class WalletProviders {
+
+    static final String GOOGLE_PAY_PROVIDER_CLASS = "ae.network.PlayServicesGooglePayProvider";
+    static final String SAMSUNG_PAY_PROVIDER_CLASS = "ae.network.SdkSamsungPayProvider";
+
+    private WalletProviders() {
+    }
+
+    /**
+     * @return whether the integration is built into the app, without loading it
+     */
+    static boolean isAvailable(String className) {
+        try {
+            Class.forName(className, false, WalletProviders.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the Google Pay integration, or null if the app was built without it
+     */
+    static GooglePayProvider loadGooglePayProvider(Context context) {
+        try {
+            return (GooglePayProvider) Class.forName(GOOGLE_PAY_PROVIDER_CLASS)
+                    .getDeclaredConstructor(Context.class)
+                    .newInstance(context);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the Samsung Pay integration, or null if the app was built without it
+     */
+    static SamsungPayProvider loadSamsungPayProvider() {
+        try {
+            return (SamsungPayProvider) Class.forName(SAMSUNG_PAY_PROVIDER_CLASS)
+                    .getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ae.network;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+
+/**
+ * New architecture base of {@link NiSdkModule}: the TurboModule spec generated by codegen from
+ * src/NativeNiSdk.js.
+ */
+abstract class NiSdkSpec extends NativeNiSdkSpec {
+
+    static final boolean IS_TURBO_MODULE = true;
+
+    NiSdkSpec(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+}
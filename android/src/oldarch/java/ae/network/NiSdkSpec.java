@@ -0,0 +1,29 @@
+package ae.network;
+
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReactContextBaseJavaModule;
+
+import java.util.Map;
+
+/**
+ * Old architecture base of {@link NiSdkModule}: a classic bridge module.
+ */
+abstract class NiSdkSpec extends ReactContextBaseJavaModule {
+
+    static final boolean IS_TURBO_MODULE = false;
+
+    NiSdkSpec(ReactApplicationContext reactContext) {
+        super(reactContext);
+    }
+
+    /**
+     * Mirrors the generated spec, so the module declares its constants the same way on both
+     * architectures.
+     */
+    protected abstract Map<String, Object> getTypedExportedConstants();
+
+    @Override
+    public final Map<String, Object> getConstants() {
+        return getTypedExportedConstants();
+    }
+}
@@ -0,0 +1,47 @@
+package ae.network;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+import payment.sdk.android.PaymentClient;
+import payment.sdk.android.core.Order;
+import payment.sdk.android.samsungpay.SamsungPayResponse;
+
+/**
+ * Samsung Pay through payment-sdk-samsungpay. Loaded by name from {@link WalletProviders}.
+ */
+class SdkSamsungPayProvider implements SamsungPayProvider {
+
+    @Override
+    public void isSamsungPayEnabled(PaymentClient paymentClient, PaymentLauncher.AvailabilityListener listener) {
+        paymentClient.getSupportedPaymentMethods(new PaymentClient.SupportedPaymentTypesListener() {
+            @Override
+            public void onReady(@NotNull List<? extends PaymentClient.PaymentType> list) {
+                boolean samsungPayEnabled = false;
+                for (PaymentClient.PaymentType type : list) {
+                    if (type == PaymentClient.PaymentType.SAMSUNG_PAY) {
+                        samsungPayEnabled = true;
+                    }
+                }
+                listener.onResult(samsungPayEnabled);
+            }
+        });
+    }
+
+    @Override
+    public void launchSamsungPay(PaymentClient paymentClient, Order order, String merchantName,
+                                 PaymentLauncher.SamsungPayListener listener) {
+        paymentClient.launchSamsungPay(order, merchantName, new SamsungPayResponse() {
+            @Override
+            public void onSuccess() {
+                listener.onSuccess();
+            }
+
+            @Override
+            public void onFailure(@NotNull String s) {
+                listener.onFailure(s);
+            }
+        });
+    }
+}
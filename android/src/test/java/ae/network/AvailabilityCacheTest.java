@@ -0,0 +1,223 @@
+package ae.network;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class AvailabilityCacheTest {
+
+    private static final long TTL_MILLIS = 60_000;
+
+    private final Queue<Runnable> queuedProbes = new ArrayDeque<>();
+    private final Executor queueExecutor = queuedProbes::add;
+    private final List<AvailabilityCache.ProbeListener> probeListeners = new ArrayList<>();
+    private final List<Boolean> results = new ArrayList<>();
+    private AvailabilityCache<String> cache;
+
+    @Before
+    public void setUp() {
+        cache = new AvailabilityCache<>((key, listener) -> probeListeners.add(listener), TTL_MILLIS, queueExecutor);
+    }
+
+    @Test
+    public void missRunsTheProbeOnTheExecutor() {
+        cache.get("TEST", results::add);
+
+        assertEquals(0, probeListeners.size());
+        assertEquals(1, queuedProbes.size());
+
+        runQueuedProbes();
+        assertEquals(1, probeListeners.size());
+        probeListeners.get(0).onResult(true);
+
+        assertEquals(Arrays.asList(true), results);
+    }
+
+    @Test
+    public void callersWaitForTheProbeInFlight() {
+        cache.get("TEST", results::add);
+        cache.get("TEST", results::add);
+        cache.get("PRODUCTION", results::add);
+        runQueuedProbes();
+
+        // One probe per key
+        assertEquals(2, probeListeners.size());
+        probeListeners.get(0).onResult(true);
+        assertEquals(Arrays.asList(true, true), results);
+    }
+
+    @Test
+    public void freshAnswerIsReturnedWithoutProbing() {
+        answer("TEST", false);
+        results.clear();
+
+        cache.get("TEST", results::add);
+
+        assertEquals(Arrays.asList(false), results);
+        assertTrue(queuedProbes.isEmpty());
+        assertEquals(Boolean.FALSE, cache.peek("TEST"));
+    }
+
+    @Test
+    public void staleAnswerIsProbedAgain() {
+        answer("TEST", true);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(TTL_MILLIS + 1));
+
+        assertNull(cache.peek("TEST"));
+        cache.get("TEST", results::add);
+        assertEquals(1, queuedProbes.size());
+    }
+
+    @Test
+    public void invalidateDropsAnswers() {
+        answer("TEST", true);
+
+        cache.invalidate();
+
+        assertNull(cache.peek("TEST"));
+    }
+
+    @Test
+    public void undeterminedAnswerIsUnavailableAndNotCached() {
+        answer("TEST", null);
+
+        assertEquals(Arrays.asList(false), results);
+        assertNull(cache.peek("TEST"));
+    }
+
+    @Test
+    public void failingProbeIsUnavailableAndNotCached() {
+        AvailabilityCache<String> failingCache = new AvailabilityCache<>((key, listener) -> {
+            throw new IllegalStateException("No wallet");
+        }, TTL_MILLIS, Runnable::run);
+
+        failingCache.get("TEST", results::add);
+
+        assertEquals(Arrays.asList(false), results);
+        assertNull(failingCache.peek("TEST"));
+    }
+
+    @Test
+    public void rejectedProbeIsUnavailable() {
+        AvailabilityCache<String> shutDownCache = new AvailabilityCache<>((key, listener) -> listener.onResult(true),
+                TTL_MILLIS, runnable -> {
+            throw new RejectedExecutionException();
+        });
+
+        shutDownCache.get("TEST", results::add);
+        shutDownCache.get("TEST", results::add);
+
+        assertEquals(Arrays.asList(false, false), results);
+    }
+
+    @Test
+    public void secondAnswerOfAProbeIsIgnored() {
+        cache.get("TEST", results::add);
+        runQueuedProbes();
+        probeListeners.get(0).onResult(true);
+        probeListeners.get(0).onResult(false);
+
+        assertEquals(Arrays.asList(true), results);
+        assertEquals(Boolean.TRUE, cache.peek("TEST"));
+    }
+
+    @Test
+    public void concurrentCallersShareOneProbe() throws Exception {
+        int callers = 16;
+        AtomicInteger probes = new AtomicInteger();
+        CountDownLatch probeMayAnswer = new CountDownLatch(1);
+        ExecutorService probeExecutor = Executors.newFixedThreadPool(2);
+        AvailabilityCache<String> sharedCache = new AvailabilityCache<>((key, listener) -> {
+            probes.incrementAndGet();
+            try {
+                probeMayAnswer.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listener.onResult(true);
+        }, TTL_MILLIS, probeExecutor);
+        try {
+            // Cold cache: every caller waits for the one probe
+            CountDownLatch answered = new CountDownLatch(callers);
+            runConcurrently(callers, () -> sharedCache.get("TEST", available -> answered.countDown()));
+            assertEquals(callers, answered.getCount());
+            probeMayAnswer.countDown();
+            assertTrue(answered.await(5, TimeUnit.SECONDS));
+
+            // Warm cache: answered on the callers' own threads without probing
+            Set<Thread> answerThreads = Collections.newSetFromMap(new ConcurrentHashMap<>());
+            Set<Thread> callerThreads = runConcurrently(callers,
+                    () -> sharedCache.get("TEST", available -> answerThreads.add(Thread.currentThread())));
+            assertEquals(callerThreads, answerThreads);
+            assertEquals(1, probes.get());
+        } finally {
+            probeExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Runs the task on the given number of threads, released at the same time.
+     *
+     * @return the threads, once all of them have finished
+     */
+    private static Set<Thread> runConcurrently(int threadCount, Runnable task) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(threadCount);
+        Set<Thread> threads = new HashSet<>();
+        for (int i = 0; i < threadCount; i++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                task.run();
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return threads;
+    }
+
+    private void answer(String key, Boolean available) {
+        cache.get(key, results::add);
+        runQueuedProbes();
+        probeListeners.remove(probeListeners.size() - 1).onResult(available);
+    }
+
+    private void runQueuedProbes() {
+        Runnable probe;
+        while ((probe = queuedProbes.poll()) != null) {
+            probe.run();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package ae.network;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.Closeable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import payment.sdk.android.cardpayment.CardPaymentData;
+import payment.sdk.android.cardpayment.CardPaymentRequest;
+import payment.sdk.android.core.Order;
+import payment.sdk.android.core.PaymentResponse;
+
+/**
+ * {@link PaymentLauncher} for the load tests: no UI is shown and no SDK or gateway is called.
+ * Every launch reports the configured outcome after the configured delay on the main looper, where
+ * the real payment activities return their results, so Robolectric runs are repeatable. Results
+ * still pending when the launcher is closed are dropped.
+ */
+final class FakePaymentLauncher implements PaymentLauncher, Closeable {
+
+    /**
+     * What the fake payment UI returns.
+     */
+    static final class Outcome {
+        private static final int SUCCESS = 0;
+        private static final int CARD_PAYMENT = 1;
+        private static final int CANCELLED = 2;
+        private static final int FAILED = 3;
+
+        private final int kind;
+        private final int statusCode;
+        private final String message;
+
+        private Outcome(int kind, int statusCode, String message) {
+            this.kind = kind;
+            this.statusCode = statusCode;
+            this.message = message;
+        }
+
+        /**
+         * Card payments and 3DS are authorised, wallets succeed.
+         */
+        static Outcome success() {
+            return new Outcome(SUCCESS, CardPaymentData.STATUS_PAYMENT_AUTHORIZED, null);
+        }
+
+        /**
+         * Card payments and 3DS return the CardPaymentData.STATUS_* code with the reason; wallets
+         * succeed if it is one of the authorised, captured or purchased codes.
+         */
+        static Outcome cardPayment(int statusCode, String reason) {
+            return new Outcome(CARD_PAYMENT, statusCode, reason);
+        }
+
+        static Outcome cancelled() {
+            return new Outcome(CANCELLED, 0, null);
+        }
+
+        static Outcome failed(String message) {
+            return new Outcome(FAILED, 0, message);
+        }
+
+        private boolean isSuccessful() {
+            return kind == SUCCESS || (kind == CARD_PAYMENT
+                    && (statusCode == CardPaymentData.STATUS_PAYMENT_AUTHORIZED
+                    || statusCode == CardPaymentData.STATUS_PAYMENT_CAPTURED
+                    || statusCode == CardPaymentData.STATUS_PAYMENT_PURCHASED));
+        }
+    }
+
+    // A Google Pay PaymentData response with only the fields the module reads
+    private static final String DEFAULT_GOOGLE_PAY_PAYMENT_DATA = "{\"apiVersion\":2,\"apiVersionMinor\":0,"
+            + "\"paymentMethodData\":{\"type\":\"CARD\",\"info\":{\"cardNetwork\":\"VISA\",\"cardDetails\":\"1111\"},"
+            + "\"tokenizationData\":{\"type\":\"PAYMENT_GATEWAY\",\"token\":\"fake-token\"}}}";
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong launchCount = new AtomicLong();
+    private volatile ResultListener resultListener;
+    private volatile Outcome outcome = Outcome.success();
+    private volatile long delayMillis;
+    private volatile String googlePayPaymentData = DEFAULT_GOOGLE_PAY_PAYMENT_DATA;
+    private volatile boolean walletsAvailable = true;
+    private volatile boolean closed;
+
+    void setOutcome(Outcome outcome) {
+        this.outcome = outcome;
+    }
+
+    /**
+     * How long the fake payment UI takes to return, 0 by default.
+     */
+    void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * The PaymentData JSON a successful Google Pay payment returns.
+     */
+    void setGooglePayPaymentData(String paymentDataJson) {
+        this.googlePayPaymentData = paymentDataJson;
+    }
+
+    /**
+     * What the Google Pay and Samsung Pay availability checks answer, true by default.
+     */
+    void setWalletsAvailable(boolean walletsAvailable) {
+        this.walletsAvailable = walletsAvailable;
+    }
+
+    /**
+     * @return the number of payment UIs launched so far
+     */
+    long getLaunchCount() {
+        return launchCount.get();
+    }
+
+    /**
+     * Drops the results not delivered yet; later launches report nothing.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        mainHandler.removeCallbacksAndMessages(null);
+    }
+
+    private void deliver(Runnable delivery) {
+        if (closed) {
+            return;
+        }
+        launchCount.incrementAndGet();
+        mainHandler.postDelayed(delivery, delayMillis);
+    }
+
+    private void deliverActivityResult(int requestCode, boolean googlePay) {
+        Outcome outcome = this.outcome;
+        deliver(() -> {
+            ResultListener listener = resultListener;
+            if (listener == null) {
+                // The module has been released
+                return;
+            }
+            if (outcome.kind == Outcome.CANCELLED) {
+                listener.onCancelled(requestCode);
+            } else if (outcome.kind == Outcome.FAILED) {
+                listener.onFailed(requestCode, outcome.message);
+            } else if (googlePay) {
+                if (outcome.isSuccessful()) {
+                    listener.onGooglePayResult(requestCode, googlePayPaymentData);
+                } else {
+                    listener.onFailed(requestCode, outcome.message);
+                }
+            } else {
+                listener.onCardPaymentResult(requestCode, outcome.statusCode, outcome.message);
+            }
+        });
+    }
+
+    @Override
+    public void setResultListener(ResultListener listener) {
+        this.resultListener = listener;
+    }
+
+    @Override
+    public void onCardPaymentActivityResult(int requestCode, int resultCode, Intent data) {
+        // No activity is ever started
+    }
+
+    @Override
+    public void onGooglePayActivityResult(int requestCode, int resultCode, Intent data) {
+        // No activity is ever started
+    }
+
+    @Override
+    public void launchCardPayment(Activity activity, CardPaymentRequest cardPaymentRequest, int requestCode) {
+        deliverActivityResult(requestCode, false);
+    }
+
+    @Override
+    public void launchThreeDSTwo(Activity activity, PaymentResponse paymentResponse, int requestCode) {
+        deliverActivityResult(requestCode, false);
+    }
+
+    @Override
+    public void launchGooglePay(Activity activity, String environment, String paymentDataRequestJson,
+                                int requestCode) {
+        deliverActivityResult(requestCode, true);
+    }
+
+    @Override
+    public void launchSamsungPay(Activity activity, Order order, String merchantName, String serviceId,
+                                 SamsungPayListener listener) {
+        Outcome outcome = this.outcome;
+        deliver(() -> {
+            if (outcome.isSuccessful()) {
+                listener.onSuccess();
+            } else {
+                listener.onFailure(outcome.kind == Outcome.CANCELLED ? "User cancelled" : outcome.message);
+            }
+        });
+    }
+
+    @Override
+    public void isGooglePayReady(String environment, String isReadyToPayRequestJson, AvailabilityListener listener) {
+        listener.onResult(walletsAvailable);
+    }
+
+    @Override
+    public void isSamsungPayEnabled(Activity activity, String serviceId, AvailabilityListener listener) {
+        listener.onResult(walletsAvailable);
+    }
+
+    @Override
+    public void releaseClients() {
+    }
+}
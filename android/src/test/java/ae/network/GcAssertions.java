@@ -0,0 +1,31 @@
+package ae.network;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertNull;
+
+/**
+ * Checks that objects no longer referenced by the code under test can be garbage collected.
+ */
+final class GcAssertions {
+
+    private GcAssertions() {
+    }
+
+    /**
+     * Runs the collector until the referent is gone, giving up after about half a second so
+     * threads that are still winding down get to drop their references.
+     */
+    static void assertCollected(String description, WeakReference<?> reference) {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        assertNull(description + " is still reachable", reference.get());
+    }
+}
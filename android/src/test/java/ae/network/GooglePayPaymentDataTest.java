@@ -0,0 +1,97 @@
+package ae.network;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GooglePayPaymentDataTest {
+
+    private static final String TOKEN =
+            "{\"signature\":\"MEUCIQ\\u003d\\u003d\",\"protocolVersion\":\"ECv2\",\"signedMessage\":\"{\\\"tag\\\":\\\"x\\\"}\"}";
+
+    @Test
+    public void readsTokenAndCardInfo() throws IOException {
+        String json = "{\"apiVersion\":2,\"apiVersionMinor\":0,"
+                + "\"email\":\"payer@example.com\","
+                + "\"paymentMethodData\":{\"type\":\"CARD\",\"description\":\"Visa 1111\","
+                + "\"info\":{\"cardNetwork\":\"VISA\",\"cardDetails\":\"1111\","
+                + "\"billingAddress\":{\"name\":\"A\",\"countryCode\":\"AE\"}},"
+                + "\"tokenizationData\":{\"type\":\"PAYMENT_GATEWAY\",\"token\":" + quote(TOKEN) + "}}}";
+
+        GooglePayPaymentData paymentData = GooglePayPaymentData.fromJson(json);
+
+        assertEquals(TOKEN, paymentData.getToken());
+        assertEquals("VISA", paymentData.getCardNetwork());
+        assertEquals("1111", paymentData.getCardDetails());
+    }
+
+    @Test
+    public void tokenizationDataBeforeInfoAndUnknownFieldsAreSkipped() throws IOException {
+        String json = "{\"paymentMethodData\":{"
+                + "\"tokenizationData\":{\"token\":\"abc\",\"type\":\"PAYMENT_GATEWAY\"},"
+                + "\"extra\":[1,{\"nested\":true}],"
+                + "\"info\":{\"cardDetails\":\"4242\"}},"
+                + "\"shippingAddress\":{\"name\":\"B\"}}";
+
+        GooglePayPaymentData paymentData = GooglePayPaymentData.fromJson(json);
+
+        assertEquals("abc", paymentData.getToken());
+        assertNull(paymentData.getCardNetwork());
+        assertEquals("4242", paymentData.getCardDetails());
+    }
+
+    @Test
+    public void nullCardInfoIsReadAsNull() throws IOException {
+        String json = "{\"paymentMethodData\":{\"info\":{\"cardNetwork\":null,\"cardDetails\":null},"
+                + "\"tokenizationData\":{\"token\":\"abc\"}}}";
+
+        GooglePayPaymentData paymentData = GooglePayPaymentData.fromJson(json);
+
+        assertNull(paymentData.getCardNetwork());
+        assertNull(paymentData.getCardDetails());
+    }
+
+    @Test
+    public void gatewayTokenIsReturnedUnescapedOnce() throws IOException {
+        GooglePayPaymentData paymentData = GooglePayPaymentData.fromJson(PaymentFixtures.GOOGLE_PAY_PAYMENT_DATA_JSON);
+
+        assertEquals("{\"signature\":\"MEYCIQCx\",\"intermediateSigningKey\":{\"signedKey\":"
+                + "\"{\\\"keyValue\\\":\\\"MFkwEwYH\\\"}\"},\"protocolVersion\":\"ECv2\","
+                + "\"signedMessage\":\"{\\\"encryptedMessage\\\":\\\"cXzB\\\"}\"}", paymentData.getToken());
+    }
+
+    @Test(expected = IOException.class)
+    public void missingTokenIsAnError() throws IOException {
+        GooglePayPaymentData.fromJson("{\"paymentMethodData\":{\"info\":{\"cardNetwork\":\"VISA\"}}}");
+    }
+
+    @Test(expected = IOException.class)
+    public void nullTokenIsAnError() throws IOException {
+        GooglePayPaymentData.fromJson("{\"paymentMethodData\":{\"tokenizationData\":{\"token\":null}}}");
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedJsonIsAnError() throws IOException {
+        GooglePayPaymentData.fromJson("{\"paymentMethodData\":{\"tokenizationData\":{\"token\":\"abc\"");
+    }
+
+    @Test
+    public void readsTheTokenOfARealisticSizedResponse() throws Exception {
+        GooglePayPaymentData paymentData = GooglePayPaymentData.fromJson(
+                PaymentFixtures.realisticGooglePayPaymentDataJson());
+
+        String token = paymentData.getToken();
+        assertTrue(token.length() > 2000);
+        assertTrue(token.startsWith("{\"signature\":"));
+        assertTrue(token.contains("\"protocolVersion\":\"ECv2\""));
+        assertEquals("VISA", paymentData.getCardNetwork());
+        assertEquals("1111", paymentData.getCardDetails());
+    }
+
+    private static String quote(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }}
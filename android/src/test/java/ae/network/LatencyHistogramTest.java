@@ -0,0 +1,120 @@
+package ae.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZeroCount() {
+        double[] snapshot = new LatencyHistogram().snapshot(50, 99);
+
+        assertEquals(3, snapshot.length);
+        assertEquals(0, snapshot[0], 0);
+        assertEquals(0, snapshot[1], 0);
+    }
+
+    @Test
+    public void smallDurationsAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(2);
+        histogram.record(3);
+        histogram.record(4);
+
+        double[] snapshot = histogram.snapshot(25, 50, 75, 100);
+
+        assertEquals(4, snapshot[0], 0);
+        assertEquals(0.000, snapshot[1], 0);
+        assertEquals(0.002, snapshot[2], 0);
+        assertEquals(0.003, snapshot[3], 0);
+        assertEquals(0.004, snapshot[4], 0);
+    }
+
+    @Test
+    public void percentilesAreWithinTheBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        // 1 to 1000 ms
+        for (long millis = 1; millis <= 1000; millis++) {
+            histogram.record(millis * 1000);
+        }
+
+        double[] snapshot = histogram.snapshot(50, 90, 99);
+
+        assertEquals(1000, snapshot[0], 0);
+        assertWithinBucketError(500, snapshot[1]);
+        assertWithinBucketError(900, snapshot[2]);
+        assertWithinBucketError(990, snapshot[3]);
+    }
+
+    @Test
+    public void percentileNeverUnderstatesTheRecordedValue() {
+        for (long micros = 1; micros < 10_000_000; micros = micros * 3 + 1) {
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(micros);
+            double reportedMillis = histogram.snapshot(100)[1];
+            assertTrue(micros + " reported as " + reportedMillis, reportedMillis * 1000 >= micros);
+            assertTrue(micros + " reported as " + reportedMillis, reportedMillis * 1000 <= micros * 1.25);
+        }
+    }
+
+    @Test
+    public void negativeAndHugeDurationsLandInTheEdgeBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        double[] snapshot = histogram.snapshot(50, 100);
+
+        assertEquals(2, snapshot[0], 0);
+        assertEquals(0, snapshot[1], 0);
+        assertTrue(snapshot[2] > 60 * 60 * 1000);
+    }
+
+    @Test
+    public void resetClearsAllCounts() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.reset();
+
+        assertEquals(0, histogram.snapshot(50)[0], 0);
+    }
+
+    @Test(timeout = 30000)
+    public void concurrentRecordsAreAllCounted() throws Exception {
+        int threads = 8;
+        int perThread = 100_000;
+        LatencyHistogram histogram = new LatencyHistogram();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        histogram.record(i % 5000);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, histogram.snapshot(50)[0], 0);
+    }
+
+    private static void assertWithinBucketError(double expectedMillis, double actualMillis) {
+        assertTrue(expectedMillis + " reported as " + actualMillis,
+                actualMillis >= expectedMillis && actualMillis <= expectedMillis * 1.25);
+    }
+}
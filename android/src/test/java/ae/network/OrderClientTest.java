@@ -0,0 +1,151 @@
+package ae.network;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OrderClientTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final OrderClient orderClient = new OrderClient(new OkHttpClient());
+    private final RecordingListener listener = new RecordingListener();
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+
+    @Test
+    public void postsTheRequestAndParsesTheOrder() throws Exception {
+        server.enqueue(new MockResponse().setBody(PaymentFixtures.ORDER_JSON));
+
+        orderClient.fetch(JavaOnlyMap.of(
+                "url", server.url("/orders").toString(),
+                "headers", JavaOnlyMap.of("Content-Type", "application/vnd.ni-payment.v2+json", "X-Merchant", "m-1"),
+                "body", "{\"amount\":1000}"), listener);
+
+        OrderProjection order = listener.takeOrder();
+        assertEquals("ref-1", order.getReference());
+        assertEquals("https://paypage.example.com/?code=abc123", order.getPaymentUrl());
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("/orders", request.getPath());
+        assertEquals("m-1", request.getHeader("X-Merchant"));
+        assertTrue(request.getHeader("Content-Type").startsWith("application/vnd.ni-payment.v2+json"));
+        assertEquals("{\"amount\":1000}", request.getBody().readUtf8());
+    }
+
+    @Test
+    public void requestWithoutBodyIsAGet() throws Exception {
+        server.enqueue(new MockResponse().setBody(PaymentFixtures.ORDER_JSON));
+
+        orderClient.fetch(JavaOnlyMap.of("url", server.url("/orders/ref-1").toString()), listener);
+
+        assertNotNull(listener.takeOrder());
+        assertEquals("GET", server.takeRequest().getMethod());
+    }
+
+    @Test
+    public void httpErrorIsReported() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("unavailable"));
+
+        orderClient.fetch(JavaOnlyMap.of("url", server.url("/orders").toString()), listener);
+
+        assertEquals(PaymentResult.ERROR_HTTP + ": HTTP 503", listener.takeError());
+    }
+
+    @Test
+    public void malformedOrderIsAParseError() throws Exception {
+        server.enqueue(new MockResponse().setBody("{\"reference\":"));
+
+        orderClient.fetch(JavaOnlyMap.of("url", server.url("/orders").toString()), listener);
+
+        assertTrue(listener.takeError().startsWith(PaymentResult.ERROR_PARSE + ": Failed to parse order"));
+    }
+
+    @Test
+    public void unreachableServerIsANetworkError() throws Exception {
+        String url = server.url("/orders").toString();
+        server.shutdown();
+
+        orderClient.fetch(JavaOnlyMap.of("url", url), listener);
+
+        assertTrue(listener.takeError().startsWith(PaymentResult.ERROR_NETWORK + ":"));
+    }
+
+    @Test
+    public void explicitMethodAndDefaultContentTypeAreUsed() {
+        Request request = OrderClient.toHttpRequest(JavaOnlyMap.of(
+                "url", "https://merchant.example.com/orders", "method", "PUT", "body", "{}"));
+
+        assertEquals("PUT", request.method());
+        assertEquals("application/json", request.body().contentType().toString().split(";")[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requestWithoutUrlIsRejected() {
+        OrderClient.toHttpRequest(JavaOnlyMap.of("body", "{}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requestWithInvalidUrlIsRejected() {
+        OrderClient.toHttpRequest(JavaOnlyMap.of("url", "not a url"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonStringHeaderIsRejected() {
+        OrderClient.toHttpRequest(JavaOnlyMap.of(
+                "url", "https://merchant.example.com/orders", "headers", JavaOnlyMap.of("X-Retry", 1)));
+    }
+
+    private static class RecordingListener implements OrderClient.Listener {
+        private final BlockingQueue<Object> results = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onOrder(OrderProjection order) {
+            results.add(order);
+        }
+
+        @Override
+        public void onError(String errorCode, String errorMessage) {
+            results.add(errorCode + ": " + errorMessage);
+        }
+
+        OrderProjection takeOrder() throws InterruptedException {
+            Object result = results.poll(5, TimeUnit.SECONDS);
+            assertTrue("Expected an order but got " + result, result instanceof OrderProjection);
+            assertNull(results.poll());
+            return (OrderProjection) result;
+        }
+
+        String takeError() throws InterruptedException {
+            Object result = results.poll(5, TimeUnit.SECONDS);
+            assertTrue("Expected an error but got " + result, result instanceof String);
+            assertNull(results.poll());
+            return (String) result;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ae.network;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import payment.sdk.android.core.Order;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class OrderProjectionTest {
+
+    @Test
+    public void projectsTheFieldsThePaymentFlowsNeed() throws IOException {
+        OrderProjection order = OrderProjection.fromJson(PaymentFixtures.ORDER_JSON);
+
+        assertEquals("ref-1", order.getReference());
+        assertEquals("https://paypage.example.com/?code=abc123", order.getPaymentUrl());
+        assertEquals("https://api.example.com/orders/ref-1/payment-authorization", order.getPaymentAuthorizationUrl());
+        assertEquals("pay-1", order.getPaymentReference());
+        assertEquals("STARTED", order.getPaymentState());
+    }
+
+    @Test
+    public void toOrderKeepsAmountCardsAndWallets() throws IOException {
+        Order order = OrderProjection.fromJson(PaymentFixtures.ORDER_JSON).toOrder();
+
+        assertEquals("outlet-1", order.getOutletId());
+        assertEquals("ref-1", order.getReference());
+        assertEquals("AED", order.getAmount().getCurrencyCode());
+        assertEquals(4200000000d, order.getAmount().getValue(), 0);
+        assertEquals(Arrays.asList("VISA", "MASTERCARD"), order.getPaymentMethods().getCard());
+        assertArrayEquals(new String[]{"APPLE_PAY", "SAMSUNG_PAY", "GOOGLE_PAY"},
+                order.getPaymentMethods().getWallet());
+        assertEquals("https://api.example.com/samsung-pay",
+                order.getEmbedded().getPayment()[0].getLinks().getSamsungPayLink().getHref());
+    }
+
+    @Test
+    public void optionalSectionsMayBeMissingOrNull() throws IOException {
+        Order order = OrderProjection.fromJson("{"
+                + "\"_links\":{\"payment\":{\"href\":\"https://p\"},\"payment-authorization\":{\"href\":\"https://a\"}},"
+                + "\"amount\":{\"value\":100},"
+                + "\"paymentMethods\":null,\"_embedded\":{\"payment\":[]},\"reference\":null}").toOrder();
+
+        assertNull(order.getReference());
+        assertNull(order.getAmount().getCurrencyCode());
+        assertEquals(0, order.getPaymentMethods().getCard().size());
+        assertEquals(0, order.getPaymentMethods().getWallet().length);
+        assertNull(order.getEmbedded().getPayment()[0].getLinks().getSamsungPayLink().getHref());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingAmountValueIsRejected() throws IOException {
+        OrderProjection.fromJson("{\"_links\":{\"payment\":{\"href\":\"https://p\"},"
+                + "\"payment-authorization\":{\"href\":\"https://a\"}},\"amount\":{\"currencyCode\":\"AED\"}}").toOrder();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingPaymentLinksAreRejected() throws IOException {
+        OrderProjection.fromJson("{\"_links\":{\"payment\":{\"href\":\"https://p\"}},\"amount\":{\"value\":1}}").toOrder();
+    }
+
+    @Test(expected = IOException.class)
+    public void malformedJsonIsAnError() throws IOException {
+        OrderProjection.fromJson("{\"reference\":");
+    }
+}
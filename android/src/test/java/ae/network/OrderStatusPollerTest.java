@@ -0,0 +1,291 @@
+package ae.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OrderStatusPollerTest {
+
+    private static final String ORDER_REFERENCE = "ref-1";
+    private static final long INITIAL_DELAY_MILLIS = 1000;
+    private static final long MAX_DELAY_MILLIS = 5000;
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final MockWebServer server = new MockWebServer();
+    private final BlockingQueue<String> changes = new LinkedBlockingQueue<>();
+    private final RecordingScheduler scheduler = new RecordingScheduler();
+    private final FixedRandom random = new FixedRandom();
+    private OrderStatusPoller poller;
+    private Request request;
+
+    @Before
+    public void setUp() throws Exception {
+        server.start();
+        request = new Request.Builder().url(server.url("/orders/" + ORDER_REFERENCE)).build();
+        poller = new OrderStatusPoller(new OkHttpClient(),
+                (orderReference, paymentState) -> changes.add(orderReference + ":" + paymentState),
+                scheduler, random);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        poller.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    public void firstPollIsSentRightAwayWithoutETag() throws Exception {
+        server.enqueue(order("STARTED", "\"v1\""));
+
+        watch(20);
+
+        RecordedRequest first = takeRequest();
+        assertNull(first.getHeader("If-None-Match"));
+        assertEquals("/orders/" + ORDER_REFERENCE, first.getPath());
+        assertEquals(0L, (long) scheduler.delays.take());
+        assertEquals(ORDER_REFERENCE + ":STARTED", takeChange());
+    }
+
+    @Test
+    public void unchangedOrderIsRequestedWithETagAndNotEmitted() throws Exception {
+        server.enqueue(order("STARTED", "\"v1\""));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        server.enqueue(order("STARTED", "\"v2\""));
+        server.enqueue(order("CAPTURED", "\"v3\""));
+
+        watch(20);
+
+        assertNull(takeRequest().getHeader("If-None-Match"));
+        assertEquals("\"v1\"", takeRequest().getHeader("If-None-Match"));
+        // A 304 keeps the last ETag
+        assertEquals("\"v1\"", takeRequest().getHeader("If-None-Match"));
+        assertEquals("\"v2\"", takeRequest().getHeader("If-None-Match"));
+
+        assertEquals(ORDER_REFERENCE + ":STARTED", takeChange());
+        assertEquals(ORDER_REFERENCE + ":CAPTURED", takeChange());
+        assertNull(changes.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void pollingStopsAtAFinalState() throws Exception {
+        server.enqueue(order("AUTHORISED", null));
+
+        watch(20);
+
+        assertEquals(ORDER_REFERENCE + ":AUTHORISED", takeChange());
+        assertNull(server.takeRequest(300, TimeUnit.MILLISECONDS));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void pollingStopsAfterMaxPolls() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            server.enqueue(new MockResponse().setResponseCode(304));
+        }
+
+        watch(2);
+
+        takeRequest();
+        takeRequest();
+        assertNull(server.takeRequest(300, TimeUnit.MILLISECONDS));
+        assertNull(changes.poll());
+    }
+
+    @Test
+    public void backoffDoublesUpToTheMaximumAndResetsOnChange() throws Exception {
+        server.enqueue(order("STARTED", null));
+        server.enqueue(new MockResponse().setResponseCode(304));
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(order("AWAIT_3DS", null));
+        server.enqueue(order("CAPTURED", null));
+        // Jitter at its maximum: the delay is the full backoff
+        random.value = 1;
+
+        watch(20);
+
+        assertEquals(0, takeDelay());
+        // Changed to STARTED: back to the initial delay
+        assertEquals(INITIAL_DELAY_MILLIS, takeDelay());
+        // 304, HTTP error and network error all back off
+        assertEquals(2 * INITIAL_DELAY_MILLIS, takeDelay());
+        assertEquals(4 * INITIAL_DELAY_MILLIS, takeDelay());
+        assertEquals(MAX_DELAY_MILLIS, takeDelay());
+        // Changed to AWAIT_3DS
+        assertEquals(INITIAL_DELAY_MILLIS, takeDelay());
+
+        assertEquals(ORDER_REFERENCE + ":STARTED", takeChange());
+        assertEquals(ORDER_REFERENCE + ":AWAIT_3DS", takeChange());
+        assertEquals(ORDER_REFERENCE + ":CAPTURED", takeChange());
+    }
+
+    @Test
+    public void jitterPicksBetweenHalfAndAllOfTheBackoff() throws Exception {
+        server.enqueue(order("STARTED", null));
+        server.enqueue(order("CAPTURED", null));
+        random.value = 0;
+
+        watch(20);
+
+        assertEquals(0, takeDelay());
+        assertEquals(INITIAL_DELAY_MILLIS / 2, takeDelay());
+        assertEquals(ORDER_REFERENCE + ":CAPTURED", takeChange(2));
+    }
+
+    @Test
+    public void invalidOptionsAreRejectedWithoutPolling() {
+        assertInvalidOptions("initialDelayMs must be positive", 0, MAX_DELAY_MILLIS, 20);
+        assertInvalidOptions("maxDelayMs must not be below initialDelayMs", INITIAL_DELAY_MILLIS,
+                INITIAL_DELAY_MILLIS - 1, 20);
+        assertInvalidOptions("maxPolls must be positive", INITIAL_DELAY_MILLIS, MAX_DELAY_MILLIS, -1);
+
+        assertTrue(scheduler.delays.isEmpty());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    @Test
+    public void unwatchStopsPolling() throws Exception {
+        scheduler.runImmediately = false;
+        server.enqueue(order("STARTED", null));
+
+        watch(20);
+        poller.unwatch(ORDER_REFERENCE);
+        scheduler.runImmediately = true;
+
+        assertNull(server.takeRequest(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void pollAllNowRestartsTheBackoff() throws Exception {
+        server.enqueue(order("STARTED", null));
+        scheduler.delayFollowUps = true;
+        random.value = 1;
+
+        watch(20);
+        takeRequest();
+        assertEquals(0, takeDelay());
+        assertEquals(INITIAL_DELAY_MILLIS, takeDelay());
+
+        server.enqueue(order("CAPTURED", null));
+        poller.pollAllNow();
+
+        assertEquals(0, takeDelay());
+        assertNotNull(takeRequest());
+        assertEquals(ORDER_REFERENCE + ":STARTED", takeChange());
+        assertEquals(ORDER_REFERENCE + ":CAPTURED", takeChange());
+    }
+
+    @Test
+    public void shutdownStopsPollingAndTheScheduler() throws Exception {
+        scheduler.delayFollowUps = true;
+        server.enqueue(order("STARTED", null));
+
+        watch(20);
+        takeRequest();
+        assertEquals(0, takeDelay());
+        assertEquals(INITIAL_DELAY_MILLIS, takeDelay());
+        poller.shutdown();
+        poller.pollAllNow();
+
+        assertTrue(scheduler.isShutdown());
+        assertNull(server.takeRequest(300, TimeUnit.MILLISECONDS));
+    }
+
+    private void assertInvalidOptions(String message, long initialDelayMillis, long maxDelayMillis, int maxPolls) {
+        try {
+            poller.watch(ORDER_REFERENCE, request, initialDelayMillis, maxDelayMillis, maxPolls);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+            return;
+        }
+        throw new AssertionError("Expected " + message);
+    }
+
+    private void watch(int maxPolls) {
+        poller.watch(ORDER_REFERENCE, request, INITIAL_DELAY_MILLIS, MAX_DELAY_MILLIS, maxPolls);
+    }
+
+    private RecordedRequest takeRequest() throws InterruptedException {
+        RecordedRequest recorded = server.takeRequest(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull("Expected a poll", recorded);
+        return recorded;
+    }
+
+    private long takeDelay() throws InterruptedException {
+        Long delay = scheduler.delays.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull("Expected a scheduled poll", delay);
+        return delay;
+    }
+
+    private String takeChange() throws InterruptedException {
+        String change = changes.poll(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        assertNotNull("Expected a status change", change);
+        return change;
+    }
+
+    private String takeChange(int skip) throws InterruptedException {
+        for (int i = 1; i < skip; i++) {
+            takeChange();
+        }
+        return takeChange();
+    }
+
+    private static MockResponse order(String paymentState, String etag) {
+        MockResponse response = new MockResponse().setBody("{\"reference\":\"" + ORDER_REFERENCE + "\","
+                + "\"_embedded\":{\"payment\":[{\"reference\":\"pay-1\",\"state\":\"" + paymentState + "\"}]}}");
+        return etag != null ? response.setHeader("ETag", etag) : response;
+    }
+
+    /**
+     * Records the delay of every poll the poller schedules and runs it right away, so backoff
+     * can be checked without waiting for it.
+     */
+    private static class RecordingScheduler extends ScheduledThreadPoolExecutor {
+        final BlockingQueue<Long> delays = new LinkedBlockingQueue<>();
+        volatile boolean runImmediately = true;
+        // Holds back every poll after the first, e.g. to see what pollAllNow does
+        volatile boolean delayFollowUps;
+
+        RecordingScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            long delayMillis = unit.toMillis(delay);
+            delays.add(delayMillis);
+            if (!runImmediately || (delayFollowUps && delayMillis > 0)) {
+                return super.schedule(command, 1, TimeUnit.HOURS);
+            }
+            return super.schedule(command, 0, unit);
+        }
+    }
+
+    private static class FixedRandom extends Random {
+        volatile double value = 0.5;
+
+        @Override
+        public double nextDouble() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package ae.network;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Orders, payment responses and Google Pay data shaped like the gateway's, shared by the unit
+ * tests and the benchmarks.
+ */
+final class PaymentFixtures {
+
+    static final String ORDER_JSON = "{"
+            + "\"_id\":\"urn:order:ref-1\","
+            + "\"_links\":{"
+            + "\"self\":{\"href\":\"https://api.example.com/orders/ref-1\"},"
+            + "\"payment\":{\"href\":\"https://paypage.example.com/?code=abc123\"},"
+            + "\"payment-authorization\":{\"href\":\"https://api.example.com/orders/ref-1/payment-authorization\"}},"
+            + "\"reference\":\"ref-1\","
+            + "\"outletId\":\"outlet-1\","
+            + "\"merchantAttributes\":{\"redirectUrl\":\"https://merchant.example.com\",\"skipConfirmationPage\":true},"
+            + "\"amount\":{\"currencyCode\":\"AED\",\"value\":4200000000},"
+            + "\"paymentMethods\":{\"card\":[\"VISA\",\"MASTERCARD\",null],\"wallet\":[\"APPLE_PAY\",\"SAMSUNG_PAY\",\"GOOGLE_PAY\"]},"
+            + "\"_embedded\":{\"payment\":[{"
+            + "\"reference\":\"pay-1\",\"state\":\"STARTED\","
+            + "\"_links\":{\"payment:samsung_pay\":{\"href\":\"https://api.example.com/samsung-pay\"}}"
+            + "},{\"reference\":\"pay-2\",\"state\":\"FAILED\"}]}"
+            + "}";
+
+    static final String GOOGLE_PAY_PAYMENT_DATA_JSON = "{\"apiVersion\":2,\"apiVersionMinor\":0,"
+            + "\"paymentMethodData\":{\"type\":\"CARD\",\"description\":\"Visa 1111\","
+            + "\"info\":{\"cardNetwork\":\"VISA\",\"cardDetails\":\"1111\","
+            + "\"billingAddress\":{\"name\":\"A\",\"countryCode\":\"AE\",\"postalCode\":\"00000\"}},"
+            + "\"tokenizationData\":{\"type\":\"PAYMENT_GATEWAY\",\"token\":\"{\\\"signature\\\":\\\"MEYCIQCx\\\","
+            + "\\\"intermediateSigningKey\\\":{\\\"signedKey\\\":\\\"{\\\\\\\"keyValue\\\\\\\":\\\\\\\"MFkwEwYH\\\\\\\"}\\\"},"
+            + "\\\"protocolVersion\\\":\\\"ECv2\\\",\\\"signedMessage\\\":\\\"{\\\\\\\"encryptedMessage\\\\\\\":\\\\\\\"cXzB\\\\\\\"}\\\"}\"}}}";
+
+    private PaymentFixtures() {
+    }
+
+    /**
+     * A PaymentData response with an ECv2 token of the size Google Pay returns. The token is JSON
+     * escaped into a string; it carries the signed message with its encrypted payload and the
+     * intermediate signing key with its signatures, each of them JSON escaped once more.
+     */
+    static String realisticGooglePayPaymentDataJson() {
+        Random random = new Random(1);
+        JsonObject signedMessage = new JsonObject();
+        signedMessage.addProperty("encryptedMessage", randomBase64(random, 1023));
+        signedMessage.addProperty("ephemeralPublicKey", randomBase64(random, 66));
+        signedMessage.addProperty("tag", randomBase64(random, 33));
+        JsonObject signedKey = new JsonObject();
+        signedKey.addProperty("keyValue", randomBase64(random, 90));
+        signedKey.addProperty("keyExpiration", "1893456000000");
+        JsonArray signatures = new JsonArray();
+        signatures.add(randomBase64(random, 72));
+        JsonObject intermediateSigningKey = new JsonObject();
+        intermediateSigningKey.addProperty("signedKey", signedKey.toString());
+        intermediateSigningKey.add("signatures", signatures);
+        JsonObject token = new JsonObject();
+        token.addProperty("signature", randomBase64(random, 72));
+        token.add("intermediateSigningKey", intermediateSigningKey);
+        token.addProperty("protocolVersion", "ECv2");
+        token.addProperty("signedMessage", signedMessage.toString());
+
+        JsonObject tokenizationData = new JsonObject();
+        tokenizationData.addProperty("type", "PAYMENT_GATEWAY");
+        tokenizationData.addProperty("token", token.toString());
+        JsonObject assuranceDetails = new JsonObject();
+        assuranceDetails.addProperty("accountVerified", true);
+        assuranceDetails.addProperty("cardHolderAuthenticated", false);
+        JsonObject billingAddress = new JsonObject();
+        billingAddress.addProperty("name", "Card Holder");
+        billingAddress.addProperty("address1", "Building 1, Street 2");
+        billingAddress.addProperty("locality", "Dubai");
+        billingAddress.addProperty("countryCode", "AE");
+        billingAddress.addProperty("postalCode", "00000");
+        JsonObject info = new JsonObject();
+        info.addProperty("cardNetwork", "VISA");
+        info.addProperty("cardDetails", "1111");
+        info.add("assuranceDetails", assuranceDetails);
+        info.add("billingAddress", billingAddress);
+        JsonObject paymentMethodData = new JsonObject();
+        paymentMethodData.addProperty("type", "CARD");
+        paymentMethodData.addProperty("description", "Visa 1111");
+        paymentMethodData.add("info", info);
+        paymentMethodData.add("tokenizationData", tokenizationData);
+        JsonObject paymentData = new JsonObject();
+        paymentData.addProperty("apiVersion", 2);
+        paymentData.addProperty("apiVersionMinor", 0);
+        paymentData.addProperty("email", "card.holder@example.com");
+        paymentData.add("paymentMethodData", paymentMethodData);
+        return paymentData.toString();
+    }
+
+    private static String randomBase64(Random random, int byteCount) {
+        byte[] bytes = new byte[byteCount];
+        random.nextBytes(bytes);
+        return Base64.getEncoder().encodeToString(bytes);
+    }
+
+    /**
+     * {@link #ORDER_JSON} as the bridge hands it to the module.
+     */
+    static JavaOnlyMap orderMap() {
+        return JavaOnlyMap.of(
+                "_id", "urn:order:ref-1",
+                "_links", JavaOnlyMap.of(
+                        "self", JavaOnlyMap.of("href", "https://api.example.com/orders/ref-1"),
+                        "payment", JavaOnlyMap.of("href", "https://paypage.example.com/?code=abc123"),
+                        "payment-authorization", JavaOnlyMap.of(
+                                "href", "https://api.example.com/orders/ref-1/payment-authorization")),
+                "reference", "ref-1",
+                "outletId", "outlet-1",
+                "merchantAttributes", JavaOnlyMap.of(
+                        "redirectUrl", "https://merchant.example.com", "skipConfirmationPage", true),
+                "amount", JavaOnlyMap.of("currencyCode", "AED", "value", 4200000000d),
+                "paymentMethods", JavaOnlyMap.of(
+                        "card", JavaOnlyArray.of("VISA", "MASTERCARD", null),
+                        "wallet", JavaOnlyArray.of("APPLE_PAY", "SAMSUNG_PAY", "GOOGLE_PAY")),
+                "_embedded", JavaOnlyMap.of("payment", JavaOnlyArray.of(
+                        JavaOnlyMap.of(
+                                "reference", "pay-1",
+                                "state", "STARTED",
+                                "_links", JavaOnlyMap.of("payment:samsung_pay",
+                                        JavaOnlyMap.of("href", "https://api.example.com/samsung-pay"))),
+                        JavaOnlyMap.of("reference", "pay-2", "state", "FAILED"))));
+    }
+
+    /**
+     * The JSON of an order that has been attempted {@code payments} times. Each attempt adds an
+     * embedded payment with its own links and card details, the way the gateway returns an order
+     * after failed and retried payments; the first one carries the Samsung Pay link.
+     */
+    static String orderJson(int payments) {
+        JsonObject order = new JsonObject();
+        order.addProperty("_id", "urn:order:ref-1");
+        order.add("_links", links(
+                "self", "https://api.example.com/orders/ref-1",
+                "payment", "https://paypage.example.com/?code=abc123",
+                "payment-authorization", "https://api.example.com/orders/ref-1/payment-authorization",
+                "cnp:payment-link", "https://api.example.com/orders/ref-1/payment-link"));
+        order.addProperty("type", "SINGLE");
+        order.addProperty("action", "PURCHASE");
+        order.addProperty("reference", "ref-1");
+        order.addProperty("outletId", "outlet-1");
+        order.addProperty("createDateTime", "2024-01-01T00:00:00.000Z");
+        order.addProperty("language", "en");
+        JsonObject merchantAttributes = new JsonObject();
+        merchantAttributes.addProperty("redirectUrl", "https://merchant.example.com");
+        merchantAttributes.addProperty("cancelUrl", "https://merchant.example.com/cancel");
+        merchantAttributes.addProperty("skipConfirmationPage", true);
+        merchantAttributes.addProperty("maskPaymentInfo", true);
+        order.add("merchantAttributes", merchantAttributes);
+        JsonObject amount = new JsonObject();
+        amount.addProperty("currencyCode", "AED");
+        amount.addProperty("value", 4200000000L);
+        order.add("amount", amount);
+        JsonObject paymentMethods = new JsonObject();
+        JsonArray cards = new JsonArray();
+        cards.add("VISA");
+        cards.add("MASTERCARD");
+        cards.add("AMERICAN_EXPRESS");
+        cards.add((String) null);
+        paymentMethods.add("card", cards);
+        JsonArray wallets = new JsonArray();
+        wallets.add("APPLE_PAY");
+        wallets.add("SAMSUNG_PAY");
+        wallets.add("GOOGLE_PAY");
+        paymentMethods.add("wallet", wallets);
+        order.add("paymentMethods", paymentMethods);
+        JsonArray embeddedPayments = new JsonArray();
+        for (int i = 1; i <= payments; i++) {
+            String reference = "pay-" + i;
+            String href = "https://api.example.com/orders/ref-1/payments/" + reference;
+            JsonObject payment = new JsonObject();
+            payment.addProperty("_id", "urn:payment:" + reference);
+            payment.add("_links", links(
+                    "self", href,
+                    "payment:card", href + "/card",
+                    "payment:saved-card", href + "/saved-card",
+                    "payment:samsung_pay", "https://api.example.com/samsung-pay",
+                    "payment:google_pay", href + "/google-pay",
+                    "cnp:3ds2-authentication", href + "/3ds2/authentications"));
+            payment.addProperty("reference", reference);
+            payment.addProperty("state", i == payments ? "STARTED" : "FAILED");
+            payment.add("amount", amount);
+            payment.addProperty("updateDateTime", "2024-01-01T00:00:00.000Z");
+            payment.addProperty("outletId", "outlet-1");
+            payment.addProperty("orderReference", "ref-1");
+            JsonObject paymentMethod = new JsonObject();
+            paymentMethod.addProperty("expiry", "2030-01");
+            paymentMethod.addProperty("cardholderName", "Card Holder");
+            paymentMethod.addProperty("name", "VISA");
+            paymentMethod.addProperty("pan", "411111******1111");
+            payment.add("paymentMethod", paymentMethod);
+            embeddedPayments.add(payment);
+        }
+        JsonObject embedded = new JsonObject();
+        embedded.add("payment", embeddedPayments);
+        order.add("_embedded", embedded);
+        return order.toString();
+    }
+
+    /**
+     * {@link #orderJson(int)} as the bridge hands it to the module.
+     */
+    static JavaOnlyMap orderMap(int payments) {
+        return toMap(JsonParser.parseString(orderJson(payments)).getAsJsonObject());
+    }
+
+    private static JsonObject links(String... relsAndHrefs) {
+        JsonObject links = new JsonObject();
+        for (int i = 0; i < relsAndHrefs.length; i += 2) {
+            JsonObject href = new JsonObject();
+            href.addProperty("href", relsAndHrefs[i + 1]);
+            links.add(relsAndHrefs[i], href);
+        }
+        return links;
+    }
+
+    private static JavaOnlyMap toMap(JsonObject object) {
+        JavaOnlyMap map = new JavaOnlyMap();
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+            String key = entry.getKey();
+            JsonElement value = entry.getValue();
+            if (value.isJsonObject()) {
+                map.putMap(key, toMap(value.getAsJsonObject()));
+            } else if (value.isJsonArray()) {
+                map.putArray(key, toArray(value.getAsJsonArray()));
+            } else if (value.isJsonNull()) {
+                map.putNull(key);
+            } else if (value.getAsJsonPrimitive().isBoolean()) {
+                map.putBoolean(key, value.getAsBoolean());
+            } else if (value.getAsJsonPrimitive().isNumber()) {
+                map.putDouble(key, value.getAsDouble());
+            } else {
+                map.putString(key, value.getAsString());
+            }
+        }
+        return map;
+    }
+
+    private static JavaOnlyArray toArray(JsonArray array) {
+        JavaOnlyArray list = new JavaOnlyArray();
+        for (JsonElement value : array) {
+            if (value.isJsonObject()) {
+                list.pushMap(toMap(value.getAsJsonObject()));
+            } else if (value.isJsonArray()) {
+                list.pushArray(toArray(value.getAsJsonArray()));
+            } else if (value.isJsonNull()) {
+                list.pushNull();
+            } else if (value.getAsJsonPrimitive().isBoolean()) {
+                list.pushBoolean(value.getAsBoolean());
+            } else if (value.getAsJsonPrimitive().isNumber()) {
+                list.pushDouble(value.getAsDouble());
+            } else {
+                list.pushString(value.getAsString());
+            }
+        }
+        return list;
+    }
+
+    static JavaOnlyMap paymentResponseMap() {
+        return JavaOnlyMap.of(
+                "_id", "urn:payment:pay-1",
+                "_links", JavaOnlyMap.of(
+                        "self", JavaOnlyMap.of("href", "https://api.example.com/payments/pay-1"),
+                        "cnp:3ds2-authentication", JavaOnlyMap.of("href", "https://api.example.com/3ds2/authentications"),
+                        "cnp:3ds2-challenge-response", JavaOnlyMap.of("href", "https://api.example.com/3ds2/challenge-response")),
+                "reference", "pay-1",
+                "orderReference", "ref-1",
+                "outletId", "outlet-1",
+                "authenticationCode", "auth-1",
+                "state", "AWAIT_3DS",
+                "3ds2", JavaOnlyMap.of(
+                        "messageVersion", "2.1.0",
+                        "threeDSMethodURL", "https://acs.example.com/method",
+                        "threeDSServerTransID", "tx-1",
+                        "directoryServerID", "A000000003"));
+    }
+
+    static JavaOnlyMap googlePayConfig() {
+        return JavaOnlyMap.of(
+                "environment", "TEST",
+                "merchantName", "Example Merchant",
+                "merchantId", "BCR2DN4T000000",
+                "gateway", "networkintl",
+                "gatewayMerchantId", "gateway-merchant-1");
+    }
+}
@@ -0,0 +1,264 @@
+package ae.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+public class PaymentJournalTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("payment-journal", null);
+        assertTrue(file.delete());
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+        sibling(".new").delete();
+        sibling(".bak").delete();
+    }
+
+    @Test
+    public void entriesLeftOpenAreRecoveredByTheNextInstance() throws Exception {
+        PaymentJournal journal = load();
+        String ended = journal.begin("ref-1", "card", 1);
+        journal.begin("ref-2", "googlePay", 2);
+        journal.end(ended);
+        close(journal);
+
+        List<PaymentJournal.Entry> recovered = recover(load());
+
+        assertEquals(1, recovered.size());
+        PaymentJournal.Entry entry = recovered.get(0);
+        assertEquals("ref-2", entry.orderReference);
+        assertEquals("googlePay", entry.flow);
+        assertEquals(2, entry.requestCode);
+    }
+
+    @Test
+    public void dismissedEntriesAreNotRecoveredAgain() throws Exception {
+        PaymentJournal first = load();
+        first.begin("ref-1", "card", 1);
+        close(first);
+
+        PaymentJournal second = load();
+        second.end(recover(second).get(0).id);
+        close(second);
+
+        assertTrue(recover(load()).isEmpty());
+    }
+
+    @Test
+    public void tornTrailingRecordIsSkipped() throws Exception {
+        write("B\tid-1\tref-1\tcard\t1\t100\tsession-1\n"
+                // Parses as a complete legacy line, but the newline never made it to disk
+                + "B\tid-2\tref-2\tcard\t2\t200");
+
+        List<PaymentJournal.Entry> recovered = recover(load());
+
+        assertEquals(1, recovered.size());
+        assertEquals("id-1", recovered.get(0).id);
+    }
+
+    @Test
+    public void tornTrailingRecordIsDroppedByCompaction() throws Exception {
+        write("B\tid-1\tref-1\tcard\t1\t100\tsession-1\nE\tid-");
+
+        close(load());
+
+        assertEquals("B\tid-1\tref-1\tcard\t1\t100\tsession-1\n", read());
+    }
+
+    @Test
+    public void appendsAfterATornRecordAreRecovered() throws Exception {
+        write("B\tid-1\tref-1\tcard\t1\t100\tsession-1\nE\tid-");
+        PaymentJournal journal = load();
+        journal.begin("ref-2", "card", 2);
+        close(journal);
+
+        List<PaymentJournal.Entry> recovered = recover(load());
+
+        assertEquals(2, recovered.size());
+        assertEquals("id-1", recovered.get(0).id);
+        assertEquals("ref-2", recovered.get(1).orderReference);
+    }
+
+    @Test
+    public void unfinishedCompactionIsDiscarded() throws Exception {
+        write("B\tid-1\tref-1\tcard\t1\t100\tsession-1\nB\tid-2\tref-2\tcard\t2\t200\tsession-1\n");
+        // Written by a compaction the process was killed in
+        write(sibling(".new"), "B\tid-1\tref-1\tca");
+
+        List<PaymentJournal.Entry> recovered = recover(load());
+
+        assertEquals(2, recovered.size());
+    }
+
+    @Test
+    public void compactionInterruptedAfterTheBackupIsRolledBack() throws Exception {
+        // Older AtomicFile versions move the journal to a backup before rewriting it
+        write(sibling(".bak"), "B\tid-1\tref-1\tcard\t1\t100\tsession-1\n");
+        write("B\tid-1\tref-1");
+        PaymentJournal journal = load();
+        journal.begin("ref-2", "card", 2);
+        close(journal);
+
+        List<PaymentJournal.Entry> recovered = recover(load());
+
+        assertEquals(2, recovered.size());
+        assertEquals("id-1", recovered.get(0).id);
+        assertEquals("ref-2", recovered.get(1).orderReference);
+    }
+
+    @Test
+    public void legacyBeginLinesAreRecovered() throws Exception {
+        write("B\tid-1\t\tcard\t1\t100\n");
+
+        PaymentJournal journal = load();
+        List<PaymentJournal.Entry> recovered = recover(journal);
+
+        assertEquals(1, recovered.size());
+        assertNull(recovered.get(0).orderReference);
+        assertNull(recovered.get(0).session);
+        assertTrue(attach(journal, 1));
+    }
+
+    @Test
+    public void compactionKeepsOnlyOpenEntries() throws Exception {
+        PaymentJournal journal = load();
+        journal.begin("open", "card", 1);
+        for (int i = 0; i < 40; i++) {
+            journal.end(journal.begin("ref-" + i, "card", 2));
+        }
+        close(journal);
+
+        // Compacted after 32 end lines, then 8 more begin/end pairs appended
+        assertEquals(1 + 8 * 2, read().split("\n").length);
+        List<PaymentJournal.Entry> recovered = recover(load());
+        assertEquals(1, recovered.size());
+        assertEquals("open", recovered.get(0).orderReference);
+    }
+
+    @Test
+    public void lateResultOnlyMatchesThePreviousSession() throws Exception {
+        write("B\told\tref-old\tcard\t1\t100\tsession-1\n"
+                + "B\tnew\tref-new\tcard\t2\t200\tsession-2\n");
+        PaymentJournal journal = load();
+
+        // Request code 1 was launched by an older process, not the one that just died
+        assertFalse(attach(journal, 1));
+        assertTrue(attach(journal, 2));
+
+        for (PaymentJournal.Entry entry : recover(journal)) {
+            assertEquals("new".equals(entry.id), entry.lateResult != null);
+        }
+    }
+
+    @Test
+    public void lateResultIsNotAttachedTwice() throws Exception {
+        write("B\tid-1\tref-1\tcard\t1\t100\tsession-1\n");
+        PaymentJournal journal = load();
+        PaymentResult first = PaymentResult.success();
+
+        assertTrue(attach(journal, 1, first));
+        assertFalse(attach(journal, 1, PaymentResult.success()));
+        assertSame(first, recover(journal).get(0).lateResult);
+    }
+
+    @Test
+    public void ambiguousLateResultIsNotAttached() throws Exception {
+        write("B\tid-1\tref-1\tcard\t1\t100\tsession-1\n"
+                + "B\tid-2\tref-2\tcard\t1\t200\tsession-1\n");
+
+        assertFalse(attach(load(), 1));
+    }
+
+    @Test
+    public void writesAfterShutdownAreIgnored() throws Exception {
+        PaymentJournal journal = load();
+        close(journal);
+
+        journal.end(journal.begin("ref-1", "card", 1));
+
+        assertFalse(file.exists());
+    }
+
+    private PaymentJournal load() {
+        PaymentJournal journal = new PaymentJournal(file);
+        journal.load();
+        return journal;
+    }
+
+    private static List<PaymentJournal.Entry> recover(PaymentJournal journal) throws InterruptedException {
+        await(journal);
+        return journal.getRecoveredEntries();
+    }
+
+    private static boolean attach(PaymentJournal journal, int requestCode) throws InterruptedException {
+        return attach(journal, requestCode, PaymentResult.success());
+    }
+
+    private static boolean attach(PaymentJournal journal, int requestCode, PaymentResult result)
+            throws InterruptedException {
+        await(journal);
+        return journal.attachLateResult(requestCode, result);
+    }
+
+    private static void close(PaymentJournal journal) throws InterruptedException {
+        await(journal);
+        journal.shutdown();
+    }
+
+    /**
+     * Waits until the journal thread has run everything queued so far.
+     */
+    private static void await(PaymentJournal journal) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        journal.execute(done::countDown);
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+
+    private void write(String content) throws IOException {
+        write(file, content);
+    }
+
+    private static void write(File file, String content) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(UTF_8));
+        }
+    }
+
+    /**
+     * @return the file AtomicFile keeps next to the journal with the given suffix
+     */
+    private File sibling(String suffix) {
+        return new File(file.getPath() + suffix);
+    }
+
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), UTF_8);
+    }
+}
@@ -0,0 +1,477 @@
+package ae.network;
+
+import android.app.Activity;
+import android.os.Looper;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.PromiseImpl;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+import payment.sdk.android.cardpayment.CardPaymentData;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Drives the module end to end with a {@link FakePaymentLauncher}: orders are parsed on the
+ * payment executor, launched on the main looper and completed by the fake, as with the real
+ * payment activities. The main run mixes card, 3DS, Google Pay and Samsung Pay checkouts with
+ * declines, cancellations and errors, and checks that each settles with its own outcome. Its
+ * size and the throughput and p99 limits are set with the ni.loadTest.* system properties, e.g.
+ * -Pni.loadTest.payments=50000 -Pni.loadTest.maxP99Millis=20 on the Gradle command line; the
+ * limits are only checked when set, as shared CI machines are too noisy for fixed ones.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PaymentLoadTest {
+
+    private static final int PAYMENTS = Integer.getInteger("ni.loadTest.payments", 20000);
+    private static final int WARMUP_PAYMENTS = Integer.getInteger("ni.loadTest.warmupPayments", 500);
+    // Null unless set
+    private static final Double MIN_PAYMENTS_PER_SECOND = getDouble("ni.loadTest.minPaymentsPerSecond");
+    private static final Double MAX_P99_MILLIS = getDouble("ni.loadTest.maxP99Millis");
+    // Checkouts run before the module is released and checked for leaks
+    private static final int RETENTION_CHECKOUTS = Integer.getInteger("ni.loadTest.retentionCheckouts", 2000);
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final long RESULT_DELAY_MILLIS = 100;
+    private static final String MERCHANT_NAME = "Example Merchant";
+    private static final String SAMSUNG_PAY_SERVICE_ID = "service-1";
+
+    /**
+     * A checkout of the mixed run: the flow started, what the fake payment UI returns and the
+     * status the promise resolves with.
+     */
+    private enum Checkout {
+        CARD(FlowMetrics.Flow.CARD_PAYMENT, FakePaymentLauncher.Outcome.success(),
+                PaymentResult.STATUS_SUCCESS),
+        CARD_DECLINED(FlowMetrics.Flow.CARD_PAYMENT,
+                FakePaymentLauncher.Outcome.cardPayment(CardPaymentData.STATUS_PAYMENT_FAILED, "Declined"),
+                PaymentResult.STATUS_FAILED),
+        CARD_CANCELLED(FlowMetrics.Flow.CARD_PAYMENT, FakePaymentLauncher.Outcome.cancelled(),
+                PaymentResult.STATUS_ABORTED),
+        CARD_ERROR(FlowMetrics.Flow.CARD_PAYMENT, FakePaymentLauncher.Outcome.failed("Card activity failed"),
+                PaymentResult.STATUS_FAILED),
+        THREE_DS(FlowMetrics.Flow.THREE_DS_TWO,
+                FakePaymentLauncher.Outcome.cardPayment(CardPaymentData.STATUS_PAYMENT_CAPTURED, null),
+                PaymentResult.STATUS_SUCCESS),
+        THREE_DS_DECLINED(FlowMetrics.Flow.THREE_DS_TWO,
+                FakePaymentLauncher.Outcome.cardPayment(CardPaymentData.STATUS_PAYMENT_FAILED, "Not authenticated"),
+                PaymentResult.STATUS_FAILED),
+        GOOGLE_PAY(FlowMetrics.Flow.GOOGLE_PAY, FakePaymentLauncher.Outcome.success(),
+                PaymentResult.STATUS_SUCCESS),
+        GOOGLE_PAY_CANCELLED(FlowMetrics.Flow.GOOGLE_PAY, FakePaymentLauncher.Outcome.cancelled(),
+                PaymentResult.STATUS_ABORTED),
+        SAMSUNG_PAY(FlowMetrics.Flow.SAMSUNG_PAY, FakePaymentLauncher.Outcome.success(),
+                PaymentResult.STATUS_SUCCESS),
+        SAMSUNG_PAY_FAILED(FlowMetrics.Flow.SAMSUNG_PAY, FakePaymentLauncher.Outcome.failed("Wallet error"),
+                PaymentResult.STATUS_FAILED);
+
+        final FlowMetrics.Flow flow;
+        final FakePaymentLauncher.Outcome outcome;
+        final String status;
+
+        Checkout(FlowMetrics.Flow flow, FakePaymentLauncher.Outcome outcome, String status) {
+            this.flow = flow;
+            this.outcome = outcome;
+            this.status = status;
+        }
+    }
+
+    // Mostly successful card payments, as in production
+    private static final Checkout[] CHECKOUT_MIX = {
+            Checkout.CARD, Checkout.CARD, Checkout.CARD, Checkout.CARD, Checkout.CARD_DECLINED,
+            Checkout.CARD, Checkout.CARD_CANCELLED, Checkout.THREE_DS, Checkout.GOOGLE_PAY, Checkout.CARD,
+            Checkout.SAMSUNG_PAY, Checkout.CARD, Checkout.CARD_ERROR, Checkout.THREE_DS_DECLINED,
+            Checkout.GOOGLE_PAY, Checkout.CARD, Checkout.GOOGLE_PAY_CANCELLED, Checkout.SAMSUNG_PAY,
+            Checkout.CARD, Checkout.SAMSUNG_PAY_FAILED};
+
+    private MockedStatic<Arguments> arguments;
+    private ActivityController<Activity> activityController;
+    private ReactApplicationContext reactContext;
+    private FakePaymentLauncher launcher;
+    private NiSdkModule module;
+
+    @Before
+    public void setUp() {
+        // The real maps are backed by the React Native native libraries
+        arguments = mockStatic(Arguments.class);
+        arguments.when(Arguments::createMap).thenAnswer(invocation -> new JavaOnlyMap());
+        arguments.when(Arguments::createArray).thenAnswer(invocation -> new JavaOnlyArray());
+        activityController = Robolectric.buildActivity(Activity.class).setup();
+        reactContext = new ReactApplicationContext(RuntimeEnvironment.getApplication());
+        reactContext.onHostResume(activityController.get());
+        launcher = new FakePaymentLauncher();
+        module = new NiSdkModule(reactContext, launcher);
+    }
+
+    @After
+    public void tearDown() {
+        // The retention test has already released and dropped them
+        if (module != null) {
+            module.invalidate();
+        }
+        launcher.close();
+        if (activityController != null) {
+            activityController.destroy();
+        }
+        arguments.close();
+    }
+
+    @Test
+    public void mixedCheckoutsSettleWithTheirOutcomes() {
+        String paymentDataJson = PaymentFixtures.realisticGooglePayPaymentDataJson();
+        launcher.setGooglePayPaymentData(paymentDataJson);
+        runCheckouts(WARMUP_PAYMENTS);
+        module.resetMetrics();
+
+        long startNanos = System.nanoTime();
+        Map<Checkout, Integer> counts = runCheckouts(PAYMENTS);
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+        ReadableMap metrics = module.getMetrics();
+        Map<FlowMetrics.Flow, Map<String, Integer>> expected = new EnumMap<>(FlowMetrics.Flow.class);
+        for (Map.Entry<Checkout, Integer> count : counts.entrySet()) {
+            Checkout checkout = count.getKey();
+            expected.computeIfAbsent(checkout.flow, flow -> new HashMap<>())
+                    .merge(checkout.status, count.getValue(), Integer::sum);
+        }
+        for (Map.Entry<FlowMetrics.Flow, Map<String, Integer>> flow : expected.entrySet()) {
+            for (Map.Entry<String, Integer> status : flow.getValue().entrySet()) {
+                assertEquals(flow.getKey().key + " " + status.getKey(), (int) status.getValue(),
+                        metrics.getMap(flow.getKey().key).getMap(status.getKey()).getInt("count"));
+            }
+        }
+        assertEquals(WARMUP_PAYMENTS + PAYMENTS, launcher.getLaunchCount());
+
+        if (MIN_PAYMENTS_PER_SECOND != null) {
+            double paymentsPerSecond = PAYMENTS / seconds;
+            assertTrue("Throughput " + paymentsPerSecond + "/s is below " + MIN_PAYMENTS_PER_SECOND,
+                    paymentsPerSecond >= MIN_PAYMENTS_PER_SECOND);
+        }
+        if (MAX_P99_MILLIS != null) {
+            double p99Millis = metrics.getMap(FlowMetrics.Flow.CARD_PAYMENT.key)
+                    .getMap(PaymentResult.STATUS_SUCCESS).getDouble("p99");
+            assertTrue("p99 " + p99Millis + " ms is above " + MAX_P99_MILLIS, p99Millis <= MAX_P99_MILLIS);
+        }
+    }
+
+    @Test
+    public void walletAvailabilityComesFromTheWallets() {
+        launcher.setWalletsAvailable(false);
+        AtomicReference<ReadableMap> availability = new AtomicReference<>();
+
+        module.getAvailablePaymentMethods(JavaOnlyMap.of(
+                        "googlePay", PaymentFixtures.googlePayConfig(),
+                        "samsungPay", JavaOnlyMap.of("serviceId", SAMSUNG_PAY_SERVICE_ID)),
+                new PromiseImpl(args -> availability.set((ReadableMap) args[0]), args -> {}));
+        idleUntil(() -> availability.get() != null);
+
+        assertFalse(availability.get().getBoolean("googlePay"));
+        assertFalse(availability.get().getBoolean("samsungPay"));
+    }
+
+    @Test
+    public void launchesWhileAPaymentIsLiveAreRejected() {
+        launcher.setDelayMillis(RESULT_DELAY_MILLIS);
+        int bursts = 20;
+        int launchesPerBurst = 8;
+
+        for (int burst = 0; burst < bursts; burst++) {
+            List<PaymentCall> calls = new ArrayList<>();
+            for (int i = 0; i < launchesPerBurst; i++) {
+                calls.add(startCardPayment("ref-" + burst + "-" + i));
+            }
+            // Only the launched payment waits for the fake's result
+            idleUntil(() -> settledCount(calls) == launchesPerBurst - 1);
+            PaymentCall live = null;
+            for (PaymentCall call : calls) {
+                if (call.result == null) {
+                    live = call;
+                } else {
+                    assertEquals(PaymentResult.STATUS_FAILED, call.result.getString("status"));
+                    assertEquals(PaymentResult.ERROR_IN_PROGRESS, call.result.getString("errorCode"));
+                }
+            }
+            assertNotNull(live);
+
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(RESULT_DELAY_MILLIS));
+
+            // The result reaches the payment that was launched, not a rejected one
+            assertSuccess(live.result);
+            assertEquals(live.orderReference, live.result.getString("orderReference"));
+            for (PaymentCall call : calls) {
+                assertEquals(1, call.settleCount.get());
+            }
+        }
+        assertEquals(bursts, launcher.getLaunchCount());
+    }
+
+    @Test
+    public void paymentOfADestroyedActivityDoesNotBlockTheNext() {
+        launcher.setDelayMillis(RESULT_DELAY_MILLIS);
+        PaymentCall lost = startCardPayment("ref-1");
+        idleUntil(() -> launcher.getLaunchCount() == 1);
+
+        // The app's activity is destroyed and recreated while the payment UI is open
+        reactContext.onHostDestroy();
+        reactContext.onHostResume(activityController.get());
+        PaymentCall next = startCardPayment("ref-2");
+
+        idleUntil(() -> lost.result != null);
+        assertEquals(PaymentResult.STATUS_ABORTED, lost.result.getString("status"));
+        assertEquals(PaymentResult.ERROR_RESULT_LOST, lost.result.getString("errorCode"));
+        assertEquals(1, lost.settleCount.get());
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(RESULT_DELAY_MILLIS));
+        assertSuccess(awaitResult(next));
+        assertEquals(2, launcher.getLaunchCount());
+    }
+
+    @Test
+    public void everyPaymentEventCarriesItsOperationId() {
+        List<ReadableMap> events = new ArrayList<>();
+        ReactApplicationContext eventContext = spy(new ReactApplicationContext(RuntimeEnvironment.getApplication()));
+        doReturn(true).when(eventContext).hasActiveCatalystInstance();
+        DeviceEventManagerModule.RCTDeviceEventEmitter emitter = (eventName, data) -> {
+            ReadableArray batch = (ReadableArray) data;
+            for (int i = 0; i < batch.size(); i++) {
+                events.add(batch.getMap(i));
+            }
+        };
+        doReturn(emitter).when(eventContext).getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class);
+        eventContext.onHostResume(activityController.get());
+        module.invalidate();
+        module = new NiSdkModule(eventContext, launcher);
+        module.addListener(PaymentEventEmitter.EVENT_NAME);
+
+        // Fails before the payment is registered, as no Google Pay config is set
+        AtomicReference<ReadableMap> invalid = new AtomicReference<>();
+        module.startGooglePay(null, JavaOnlyMap.of("reference", "ref-invalid"),
+                new PromiseImpl(args -> invalid.set((ReadableMap) args[0]), args -> {}));
+        idleUntil(() -> invalid.get() != null);
+        assertSuccess(awaitResult(startCardPayment("ref-1")));
+        shadowOf(Looper.getMainLooper()).idle();
+
+        List<String> types = new ArrayList<>();
+        int invalidOperationId = 0;
+        int operationId = 0;
+        for (ReadableMap event : events) {
+            int eventOperationId = event.getInt("operationId");
+            assertTrue(event.getString("type"), eventOperationId > 0);
+            if ("ref-invalid".equals(event.getString("orderReference"))) {
+                assertEquals(PaymentEventEmitter.RESULT_PARSED, event.getString("type"));
+                invalidOperationId = eventOperationId;
+            } else {
+                assertTrue(operationId == 0 || operationId == eventOperationId);
+                operationId = eventOperationId;
+                types.add(event.getString("type"));
+            }
+        }
+        assertTrue(invalidOperationId > 0);
+        assertTrue(operationId != invalidOperationId);
+        assertEquals(Arrays.asList(PaymentEventEmitter.ACTIVITY_LAUNCHED,
+                PaymentEventEmitter.RETURNED_TO_APP, PaymentEventEmitter.RESULT_PARSED), types);
+    }
+
+    @Test
+    public void resultsAfterReleaseAreDropped() {
+        launcher.setDelayMillis(RESULT_DELAY_MILLIS);
+        PaymentCall call = startCardPayment("ref-1");
+        idleUntil(() -> launcher.getLaunchCount() == 1);
+
+        module.invalidate();
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(RESULT_DELAY_MILLIS));
+
+        assertNull(call.result);
+        assertEquals(0, call.settleCount.get());
+    }
+
+    @Test
+    public void callsAfterReleaseAreRejected() {
+        module.invalidate();
+
+        PaymentCall payment = startCardPayment("ref-1");
+        Promise watch = mock(Promise.class);
+        module.watchOrderStatus("ref-1", JavaOnlyMap.of("url", "https://merchant.example.com/orders/ref-1"), null,
+                watch);
+        Promise fetch = mock(Promise.class);
+        module.fetchOrder(JavaOnlyMap.of("url", "https://merchant.example.com/orders"), fetch);
+        Promise pending = mock(Promise.class);
+        module.getPendingPayments(pending);
+
+        assertEquals(PaymentResult.ERROR_RELEASED, payment.result.getString("errorCode"));
+        verify(watch).reject(eq(PaymentResult.ERROR_RELEASED), anyString());
+        verify(fetch).reject(eq(PaymentResult.ERROR_RELEASED), anyString());
+        verify(pending).reject(eq(PaymentResult.ERROR_RELEASED), anyString());
+        assertEquals(0, launcher.getLaunchCount());
+    }
+
+    @Test
+    public void releasedModuleDoesNotRetainCheckouts() {
+        List<WeakReference<Promise>> promises = new ArrayList<>();
+        for (int i = 0; i < RETENTION_CHECKOUTS; i++) {
+            PaymentCall call = startCardPayment("ref-" + i);
+            promises.add(call.promise);
+            assertSuccess(awaitResult(call));
+        }
+        WeakReference<NiSdkModule> moduleReference = new WeakReference<>(module);
+        WeakReference<Activity> activityReference = new WeakReference<>(activityController.get());
+
+        module.invalidate();
+        activityController.pause().stop().destroy();
+        module = null;
+        activityController = null;
+        reactContext = null;
+
+        GcAssertions.assertCollected("Module", moduleReference);
+        GcAssertions.assertCollected("Activity", activityReference);
+        for (WeakReference<Promise> promise : promises) {
+            GcAssertions.assertCollected("Promise", promise);
+        }
+    }
+
+    private static final class PaymentCall {
+        final String orderReference;
+        final AtomicInteger settleCount = new AtomicInteger();
+        volatile ReadableMap result;
+        WeakReference<Promise> promise;
+
+        PaymentCall(String orderReference) {
+            this.orderReference = orderReference;
+        }
+
+        void settle(Object value) {
+            settleCount.incrementAndGet();
+            result = value instanceof ReadableMap ? (ReadableMap) value : JavaOnlyMap.of("status", "Rejected");
+        }
+    }
+
+    /**
+     * Runs the checkouts of {@link #CHECKOUT_MIX} in turn, each after the previous one settled.
+     *
+     * @return how often each checkout ran
+     */
+    private Map<Checkout, Integer> runCheckouts(int payments) {
+        Map<Checkout, Integer> counts = new EnumMap<>(Checkout.class);
+        for (int i = 0; i < payments; i++) {
+            Checkout checkout = CHECKOUT_MIX[i % CHECKOUT_MIX.length];
+            launcher.setOutcome(checkout.outcome);
+            PaymentCall call = startCheckout(checkout, "ref-" + i);
+            ReadableMap result = awaitResult(call);
+            assertEquals(checkout.name(), checkout.status, result.getString("status"));
+            assertEquals(call.orderReference, result.getString("orderReference"));
+            if (checkout == Checkout.GOOGLE_PAY) {
+                assertNotNull(result.getString("token"));
+            }
+            counts.merge(checkout, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private PaymentCall startCardPayment(String orderReference) {
+        return startCheckout(Checkout.CARD, orderReference);
+    }
+
+    private PaymentCall startCheckout(Checkout checkout, String orderReference) {
+        PaymentCall call = new PaymentCall(orderReference);
+        Promise promise = new PromiseImpl(args -> call.settle(args[0]), args -> call.settle(null));
+        call.promise = new WeakReference<>(promise);
+        JavaOnlyMap order = PaymentFixtures.orderMap();
+        order.putString("reference", orderReference);
+        switch (checkout.flow) {
+            case CARD_PAYMENT:
+                module.startCardPayment(order, promise);
+                break;
+            case THREE_DS_TWO:
+                JavaOnlyMap paymentResponse = PaymentFixtures.paymentResponseMap();
+                paymentResponse.putString("orderReference", orderReference);
+                module.startThreeDSTwo(paymentResponse, promise);
+                break;
+            case GOOGLE_PAY:
+                module.startGooglePay(PaymentFixtures.googlePayConfig(), JavaOnlyMap.of(
+                        "amount", "4200.00", "currencyCode", "AED", "reference", orderReference), promise);
+                break;
+            case SAMSUNG_PAY:
+                module.startSamsungPay(order, MERCHANT_NAME, SAMSUNG_PAY_SERVICE_ID, promise);
+                break;
+            default:
+                throw new AssertionError(checkout.flow);
+        }
+        return call;
+    }
+
+    private static ReadableMap awaitResult(PaymentCall call) {
+        idleUntil(() -> call.result != null);
+        return call.result;
+    }
+
+    private static int settledCount(List<PaymentCall> calls) {
+        int settled = 0;
+        for (PaymentCall call : calls) {
+            if (call.result != null) {
+                settled++;
+            }
+        }
+        return settled;
+    }
+
+    /**
+     * Runs the main looper's due tasks until the condition holds, while the payment executor
+     * parses orders and posts their launches.
+     */
+    private static void idleUntil(BooleanSupplier condition) {
+        long deadlineNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (!condition.getAsBoolean()) {
+            assertTrue("Timed out", System.nanoTime() < deadlineNanos);
+            shadowOf(Looper.getMainLooper()).idle();
+            Thread.yield();
+        }
+    }
+
+    private static void assertSuccess(ReadableMap result) {
+        assertEquals(PaymentResult.STATUS_SUCCESS, result.getString("status"));
+    }
+
+    private static Double getDouble(String property) {
+        String value = System.getProperty(property);
+        return value != null ? Double.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,69 @@
+package ae.network;
+
+import com.facebook.react.bridge.Callback;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PaymentResultListenerTest {
+
+    @Test
+    public void callbackIsInvokedOnce() {
+        List<Object[]> invocations = new ArrayList<>();
+        PaymentResultListener listener = PaymentResultListener.forCallback(invocations::add, "ref-1");
+
+        listener.complete(PaymentResult.success());
+        listener.complete(PaymentResult.aborted(PaymentResult.ERROR_USER_CANCELLED, "Cancelled"));
+
+        assertEquals(1, invocations.size());
+        assertArrayEquals(new Object[]{PaymentResult.STATUS_SUCCESS}, invocations.get(0));
+    }
+
+    @Test
+    public void callbackIsReleasedOnceSettled() {
+        // Stands in for the JS callback and whatever it captured
+        List<Object[]> invocations = new ArrayList<>();
+        Callback callback = invocations::add;
+        WeakReference<Callback> callbackReference = new WeakReference<>(callback);
+        PaymentResultListener listener = PaymentResultListener.forCallback(callback, "ref-1");
+        callback = null;
+
+        listener.complete(PaymentResult.success());
+
+        GcAssertions.assertCollected("Callback", callbackReference);
+        // Still referenced, e.g. by an SDK callback that fires later
+        listener.complete(PaymentResult.success());
+        assertEquals(1, invocations.size());
+    }
+
+    @Test
+    public void concurrentCompletionsDeliverOneResult() throws Exception {
+        List<Object[]> invocations = new ArrayList<>();
+        PaymentResultListener listener = PaymentResultListener.forCallback(args -> {
+            synchronized (invocations) {
+                invocations.add(args);
+            }
+        }, "ref-1");
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> listener.complete(PaymentResult.success()));
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1, invocations.size());
+        assertEquals(Arrays.asList(PaymentResult.STATUS_SUCCESS), Arrays.asList(invocations.get(0)));
+    }
+}
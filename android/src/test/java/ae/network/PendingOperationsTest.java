@@ -0,0 +1,206 @@
+package ae.network;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PendingOperationsTest {
+
+    private static final int REQUEST_CODE = 765;
+    private static final int THREADS = 8;
+
+    @Test
+    public void operationIsTakenOnce() {
+        PendingOperations<String> operations = new PendingOperations<>();
+        int operationId = operations.register("listener");
+
+        assertEquals("listener", operations.take(operationId));
+        assertNull(operations.take(operationId));
+    }
+
+    @Test
+    public void secondBindIsRejectedWhileFirstIsWaiting() {
+        PendingOperations<String> operations = new PendingOperations<>();
+        int first = operations.register("first");
+        int second = operations.register("second");
+
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, first));
+        assertFalse(operations.bindActivityResult(REQUEST_CODE, second));
+
+        // The result of the first activity still reaches the first operation
+        assertEquals("first", operations.takeActivityResult(REQUEST_CODE));
+        assertNull(operations.takeActivityResult(REQUEST_CODE));
+        assertEquals("second", operations.take(second));
+    }
+
+    @Test
+    public void requestCodeIsFreedOnceTheBoundOperationCompletes() {
+        PendingOperations<String> operations = new PendingOperations<>();
+        int first = operations.register("first");
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, first));
+        operations.take(first);
+
+        int second = operations.register("second");
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, second));
+        assertEquals("second", operations.takeActivityResult(REQUEST_CODE));
+    }
+
+    @Test
+    public void unbindOnlyReleasesTheGivenOperation() {
+        PendingOperations<String> operations = new PendingOperations<>();
+        int first = operations.register("first");
+        int second = operations.register("second");
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, first));
+
+        operations.unbindActivityResult(REQUEST_CODE, second);
+        assertFalse(operations.bindActivityResult(REQUEST_CODE, second));
+
+        operations.unbindActivityResult(REQUEST_CODE, first);
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, second));
+    }
+
+    @Test
+    public void releasedBindingIsTakenOverByTheNextLaunch() {
+        PendingOperations<String> operations = new PendingOperations<>();
+        int first = operations.register("first");
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, first));
+
+        operations.releaseActivityResults();
+
+        assertEquals("first", operations.takeReleasedActivityResult(REQUEST_CODE));
+        assertNull(operations.take(first));
+        int second = operations.register("second");
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, second));
+        assertNull(operations.takeReleasedActivityResult(REQUEST_CODE));
+        assertEquals("second", operations.takeActivityResult(REQUEST_CODE));
+    }
+
+    @Test
+    public void resultStillReachesAReleasedOperation() {
+        PendingOperations<String> operations = new PendingOperations<>();
+        int operationId = operations.register("listener");
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, operationId));
+
+        operations.releaseActivityResults();
+
+        assertEquals("listener", operations.takeActivityResult(REQUEST_CODE));
+        assertNull(operations.takeReleasedActivityResult(REQUEST_CODE));
+    }
+
+    @Test
+    public void bindingsMadeAfterTheReleaseAreNotReleased() {
+        PendingOperations<String> operations = new PendingOperations<>();
+        operations.releaseActivityResults();
+        int operationId = operations.register("listener");
+        assertTrue(operations.bindActivityResult(REQUEST_CODE, operationId));
+
+        assertNull(operations.takeReleasedActivityResult(REQUEST_CODE));
+        assertFalse(operations.bindActivityResult(REQUEST_CODE, operations.register("second")));
+    }
+
+    @Test
+    public void clearDropsOperationsAndBindings() {
+        PendingOperations<String> operations = new PendingOperations<>();
+        int operationId = operations.register("listener");
+        operations.bindActivityResult(REQUEST_CODE, operationId);
+
+        operations.clear();
+
+        assertNull(operations.take(operationId));
+        assertNull(operations.takeActivityResult(REQUEST_CODE));
+    }
+
+    @Test(timeout = 30000)
+    public void concurrentRegisterAndTakeHandOutEachListenerOnce() throws Exception {
+        int perThread = 20000;
+        PendingOperations<Integer> operations = new PendingOperations<>();
+        AtomicIntegerArray taken = new AtomicIntegerArray(THREADS * perThread);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        int operationId = operations.register(thread * perThread + i);
+                        // Two takers race for every operation, like an SDK callback and a teardown
+                        Integer first = operations.take(operationId);
+                        Integer second = operations.take(operationId);
+                        if (first != null) {
+                            taken.incrementAndGet(first);
+                        }
+                        assertNull(second);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < taken.length(); i++) {
+            assertEquals("listener " + i, 1, taken.get(i));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void concurrentLaunchesOnOneRequestCodeNeverMisrouteResults() throws Exception {
+        int rounds = 2000;
+        PendingOperations<Integer> operations = new PendingOperations<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicInteger rejected = new AtomicInteger();
+        try {
+            for (int round = 0; round < rounds; round++) {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Integer>> launches = new ArrayList<>();
+                for (int t = 0; t < THREADS; t++) {
+                    int listener = round * THREADS + t;
+                    launches.add(executor.submit(() -> {
+                        start.await();
+                        int operationId = operations.register(listener);
+                        if (operations.bindActivityResult(REQUEST_CODE, operationId)) {
+                            return listener;
+                        }
+                        // A rejected launch is completed by its caller and never sees a result
+                        rejected.incrementAndGet();
+                        assertEquals(Integer.valueOf(listener), operations.take(operationId));
+                        return null;
+                    }));
+                }
+                start.countDown();
+                Integer bound = null;
+                for (Future<Integer> launch : launches) {
+                    Integer listener = launch.get();
+                    if (listener != null) {
+                        assertNull("only one launch per request code may be bound", bound);
+                        bound = listener;
+                    }
+                }
+                // The activity result goes to the launch that won the request code
+                assertEquals(bound, operations.takeActivityResult(REQUEST_CODE));
+                assertNull(operations.takeActivityResult(REQUEST_CODE));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(rounds * (THREADS - 1), rejected.get());
+    }
+}
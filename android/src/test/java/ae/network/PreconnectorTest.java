@@ -0,0 +1,142 @@
+package ae.network;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreconnectorTest {
+
+    private final MockWebServer server = new MockWebServer();
+    private final Preconnector preconnector = new Preconnector();
+    private SSLSocketFactory defaultSocketFactory;
+    private HostnameVerifier defaultHostnameVerifier;
+
+    @Before
+    public void setUp() throws Exception {
+        HeldCertificate localhost = new HeldCertificate.Builder().addSubjectAlternativeName("localhost").build();
+        server.useHttps(new HandshakeCertificates.Builder().heldCertificate(localhost).build().sslSocketFactory(), false);
+        server.start();
+
+        defaultSocketFactory = HttpsURLConnection.getDefaultSSLSocketFactory();
+        defaultHostnameVerifier = HttpsURLConnection.getDefaultHostnameVerifier();
+        HttpsURLConnection.setDefaultSSLSocketFactory(new HandshakeCertificates.Builder()
+                .addTrustedCertificate(localhost.certificate()).build().sslSocketFactory());
+        HttpsURLConnection.setDefaultHostnameVerifier((hostname, session) -> true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        preconnector.shutdown();
+        server.shutdown();
+        HttpsURLConnection.setDefaultSSLSocketFactory(defaultSocketFactory);
+        HttpsURLConnection.setDefaultHostnameVerifier(defaultHostnameVerifier);
+    }
+
+    @Test
+    public void sendsOneHeadRequestPerOrigin() throws Exception {
+        server.enqueue(new MockResponse());
+
+        preconnector.preconnect(Arrays.asList(
+                server.url("/transactions/outlets/o-1/orders/ref-1/payment-authorization").toString(),
+                server.url("/transactions/outlets/o-1/orders/ref-1/payments/p-1/3ds2/authentications").toString()));
+
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(request);
+        assertEquals("HEAD", request.getMethod());
+        assertEquals("/", request.getPath());
+        assertNull(server.takeRequest(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void laterRequestReusesTheWarmedConnection() throws Exception {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse().setBody("{}"));
+
+        preconnector.preconnect(Collections.singletonList(server.url("/orders").toString()));
+        RecordedRequest warmUp = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(warmUp);
+        // The connection goes back to the pool once the preconnect thread has closed the response
+        Thread.sleep(200);
+
+        HttpsURLConnection connection = (HttpsURLConnection) server.url("/orders").url().openConnection();
+        try (InputStream body = connection.getInputStream()) {
+            while (body.read() != -1) {
+                // Drain
+            }
+        }
+
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("/orders", request.getPath());
+        // Second request on the connection the HEAD request opened, so no new TLS handshake
+        assertEquals(0, warmUp.getSequenceNumber());
+        assertEquals(1, request.getSequenceNumber());
+    }
+
+    @Test
+    public void recentlyWarmedOriginIsNotRequestedAgain() throws Exception {
+        server.enqueue(new MockResponse());
+        server.enqueue(new MockResponse());
+        String url = server.url("/orders").toString();
+
+        preconnector.preconnect(Collections.singletonList(url));
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+
+        preconnector.preconnect(Collections.singletonList(url));
+        assertNull(server.takeRequest(500, TimeUnit.MILLISECONDS));
+
+        // Once the keep-alive period is over the origin is warmed again
+        ShadowSystemClock.advanceBy(Duration.ofMinutes(6));
+        preconnector.preconnect(Collections.singletonList(url));
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void errorStatusStillCountsAsWarm() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        preconnector.preconnect(Collections.singletonList(server.url("/").toString()));
+
+        assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void nonHttpsAndMalformedUrlsAreIgnored() throws Exception {
+        preconnector.preconnect(Arrays.asList(
+                "http://localhost:" + server.getPort() + "/", "not a url", null));
+
+        assertNull(server.takeRequest(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void nothingIsSentAfterShutdown() throws Exception {
+        preconnector.shutdown();
+
+        preconnector.preconnect(Collections.singletonList(server.url("/").toString()));
+
+        assertNull(server.takeRequest(500, TimeUnit.MILLISECONDS));
+    }
+}
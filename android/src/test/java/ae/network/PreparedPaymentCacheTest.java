@@ -0,0 +1,50 @@
+package ae.network;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class PreparedPaymentCacheTest {
+
+    @Test
+    public void handlesStayValidAcrossRetries() {
+        PreparedPaymentCache<String> cache = new PreparedPaymentCache<>(2);
+        String handle = cache.put("payment");
+
+        assertEquals("payment", cache.get(handle));
+        assertEquals("payment", cache.get(handle));
+    }
+
+    @Test
+    public void handlesAreUnique() {
+        PreparedPaymentCache<String> cache = new PreparedPaymentCache<>(2);
+
+        assertNotEquals(cache.put("a"), cache.put("a"));
+    }
+
+    @Test
+    public void leastRecentlyUsedPaymentIsEvicted() {
+        PreparedPaymentCache<String> cache = new PreparedPaymentCache<>(2);
+        String first = cache.put("first");
+        String second = cache.put("second");
+        // Using the first makes the second the eldest
+        cache.get(first);
+        String third = cache.put("third");
+
+        assertEquals("first", cache.get(first));
+        assertNull(cache.get(second));
+        assertEquals("third", cache.get(third));
+    }
+
+    @Test
+    public void unknownHandleAndClearedCacheReturnNull() {
+        PreparedPaymentCache<String> cache = new PreparedPaymentCache<>(2);
+        String handle = cache.put("payment");
+
+        assertNull(cache.get("prepared-unknown"));
+        cache.clear();
+        assertNull(cache.get(handle));
+    }
+}
@@ -0,0 +1,144 @@
+package ae.network;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import payment.sdk.android.core.Order;
+import payment.sdk.android.core.PaymentResponse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class UtilsTest {
+
+    @Test
+    public void orderFromMapMatchesOrderFromJson() throws IOException {
+        Order fromMap = Utils.constructOrderFromReadableMap(PaymentFixtures.orderMap());
+        Order fromJson = OrderProjection.fromJson(PaymentFixtures.ORDER_JSON).toOrder();
+
+        assertSameOrder(fromJson, fromMap);
+    }
+
+    @Test
+    public void orderWithManyPaymentsFromMapMatchesOrderFromJson() throws IOException {
+        Order fromMap = Utils.constructOrderFromReadableMap(PaymentFixtures.orderMap(25));
+        Order fromJson = OrderProjection.fromJson(PaymentFixtures.orderJson(25)).toOrder();
+
+        assertSameOrder(fromJson, fromMap);
+        assertEquals("https://api.example.com/samsung-pay",
+                fromMap.getEmbedded().getPayment()[0].getLinks().getSamsungPayLink().getHref());
+    }
+
+    @Test
+    public void optionalSectionsMayBeMissingOrNull() {
+        JavaOnlyMap orderMap = JavaOnlyMap.of(
+                "_links", JavaOnlyMap.of(
+                        "payment", JavaOnlyMap.of("href", "https://p"),
+                        "payment-authorization", JavaOnlyMap.of("href", "https://a")),
+                "amount", JavaOnlyMap.of("value", 100d),
+                "reference", null,
+                "paymentMethods", null,
+                "_embedded", JavaOnlyMap.of("payment", JavaOnlyArray.of()));
+
+        Order order = Utils.constructOrderFromReadableMap(orderMap);
+
+        assertNull(order.getReference());
+        assertNull(order.getAmount().getCurrencyCode());
+        assertEquals(0, order.getPaymentMethods().getCard().size());
+        assertEquals(0, order.getPaymentMethods().getWallet().length);
+        assertNull(order.getEmbedded().getPayment()[0].getLinks().getSamsungPayLink().getHref());
+    }
+
+    @Test
+    public void missingRequiredFieldsNameTheKey() {
+        assertMissing("Missing amount", JavaOnlyMap.of("_links", JavaOnlyMap.of()));
+        assertMissing("Missing amount.value", JavaOnlyMap.of(
+                "amount", JavaOnlyMap.of("value", null), "_links", JavaOnlyMap.of()));
+        assertMissing("Missing _links", JavaOnlyMap.of("amount", JavaOnlyMap.of("value", 1d)));
+        assertMissing("Missing payment links", JavaOnlyMap.of(
+                "amount", JavaOnlyMap.of("value", 1d),
+                "_links", JavaOnlyMap.of("payment", JavaOnlyMap.of("href", "https://p"))));
+    }
+
+    @Test
+    public void paymentResponseKeepsLinksAndThreeDSTwoData() {
+        PaymentResponse paymentResponse = Utils.buildPaymentResponseFromReadableMap(PaymentFixtures.paymentResponseMap());
+
+        assertEquals("ref-1", paymentResponse.getOrderReference());
+        assertEquals("pay-1", paymentResponse.getReference());
+        assertEquals("outlet-1", paymentResponse.getOutletId());
+        assertEquals("auth-1", paymentResponse.getAuthenticationCode());
+        assertEquals("https://api.example.com/payments/pay-1",
+                paymentResponse.getLinks().getPaymentUrl().getHref());
+        assertEquals("https://api.example.com/payments/pay-1",
+                paymentResponse.getLinks().getPaymentAuthorizationUrl().getHref());
+        assertEquals("https://api.example.com/3ds2/authentications",
+                paymentResponse.getLinks().getThreeDSAuthenticationsUrl().getHref());
+        assertEquals("https://api.example.com/3ds2/challenge-response",
+                paymentResponse.getLinks().getThreeDSChallengeResponseUrl().getHref());
+        assertEquals("2.1.0", paymentResponse.getThreeDSTwo().getMessageVersion());
+        assertEquals("https://acs.example.com/method", paymentResponse.getThreeDSTwo().getThreeDSMethodURL());
+        assertEquals("tx-1", paymentResponse.getThreeDSTwo().getThreeDSServerTransID());
+        assertEquals("A000000003", paymentResponse.getThreeDSTwo().getDirectoryServerID());
+    }
+
+    @Test
+    public void paymentResponseSectionsAreOptional() {
+        PaymentResponse paymentResponse = Utils.buildPaymentResponseFromReadableMap(
+                JavaOnlyMap.of("orderReference", "ref-1", "_links", null));
+
+        assertEquals("ref-1", paymentResponse.getOrderReference());
+        assertNull(paymentResponse.getLinks());
+        assertNull(paymentResponse.getThreeDSTwo());
+    }
+
+    @Test
+    public void connectionUrlsAreTheGatewayApiLinks() {
+        assertEquals(Collections.singletonList("https://api.example.com/orders/ref-1/payment-authorization"),
+                Utils.getConnectionUrls(PaymentFixtures.orderMap()));
+        // The 3DS method URL is loaded in a WebView, so it is not preconnected
+        assertEquals(Collections.singletonList("https://api.example.com/3ds2/authentications"),
+                Utils.getConnectionUrls(PaymentFixtures.paymentResponseMap()));
+        assertEquals(0, Utils.getConnectionUrls(JavaOnlyMap.of()).size());
+    }
+
+    @Test
+    public void valuesOfTheWrongTypeReadAsMissing() {
+        assertNull(Utils.getOptionalString(JavaOnlyMap.of("reference", 12d), "reference"));
+        assertNull(Utils.getOptionalString(JavaOnlyMap.of(), "reference"));
+        assertNull(Utils.getOptionalString(null, "reference"));
+        assertNull(Utils.getPaymentReference(JavaOnlyMap.of("_embedded",
+                JavaOnlyMap.of("payment", JavaOnlyArray.of("not-a-map")))));
+        assertEquals("pay-1", Utils.getPaymentReference(PaymentFixtures.orderMap()));
+    }
+
+    private static void assertSameOrder(Order fromJson, Order fromMap) {
+        assertEquals(fromJson.getOutletId(), fromMap.getOutletId());
+        assertEquals(fromJson.getReference(), fromMap.getReference());
+        assertEquals(fromJson.getAmount().getCurrencyCode(), fromMap.getAmount().getCurrencyCode());
+        assertEquals(fromJson.getAmount().getValue(), fromMap.getAmount().getValue());
+        assertEquals(fromJson.getLinks().getPaymentUrl().getHref(), fromMap.getLinks().getPaymentUrl().getHref());
+        assertEquals(fromJson.getLinks().getPaymentAuthorizationUrl().getHref(),
+                fromMap.getLinks().getPaymentAuthorizationUrl().getHref());
+        assertEquals(fromJson.getPaymentMethods().getCard(), fromMap.getPaymentMethods().getCard());
+        assertArrayEquals(fromJson.getPaymentMethods().getWallet(), fromMap.getPaymentMethods().getWallet());
+        assertEquals(fromJson.getEmbedded().getPayment()[0].getLinks().getSamsungPayLink().getHref(),
+                fromMap.getEmbedded().getPayment()[0].getLinks().getSamsungPayLink().getHref());
+    }
+
+    private static void assertMissing(String message, JavaOnlyMap orderMap) {
+        try {
+            Utils.constructOrderFromReadableMap(orderMap);
+        } catch (IllegalArgumentException e) {
+            assertEquals(message, e.getMessage());
+            return;
+        }
+        throw new AssertionError("Expected " + message);
+    }
+}
@@ -1,46 +1,50 @@
-import { NativeModules, Platform } from 'react-native';
+import { NativeEventEmitter, NativeModules, Platform } from 'react-native';
 // import { SHIPPING_CONTACT_FIELDS, MERCHANT_CAPABILITIES, BILLING_CONTACT_FIELDS } from './apple-pay-constants';
 
-const { NiSdk } = NativeModules;
+// The native module is looked up on first use rather than at import time, so apps that
+// never reach checkout do not pay for loading it (and the wallet SDKs) during startup.
+// TurboModule on the new architecture, classic bridge module otherwise.
+let nativeModule;
+const getNiSdk = () => {
+  if (nativeModule === undefined) {
+    nativeModule = require('./src/NativeNiSdk').default || NativeModules.NiSdk || null;
+  }
+  return nativeModule;
+};
 
 export const SDK_VERSION = '3.1.2';
 
-// Helper function to get device info for User-Agent
-let deviceInfoCache = null;
-export const getDeviceInfo = () => {
-  return new Promise((resolve, reject) => {
-    if (deviceInfoCache) {
-      resolve(deviceInfoCache);
-      return;
-    }
-    
-    if (Platform.OS === 'android' && NiSdk && NiSdk.getDeviceInfo) {
-      NiSdk.getDeviceInfo((info) => {
-        if (info.error) {
-          // Fallback if native method fails
-          resolve({
-            platform: 'android',
-            manufacturer: 'unknown',
-            model: 'unknown',
-            osVersion: 0,
-          });
-        } else {
-          deviceInfoCache = info;
-          resolve(info);
-        }
-      });
-    } else {
-      // Fallback for iOS or if native module not available
-      resolve({
-        platform: Platform.OS,
-        manufacturer: 'unknown',
-        model: 'unknown',
-        osVersion: 0,
-      });
-    }
-  });
+// Constants exported by the Android module: device info, native SDK version and which
+// wallet integrations are bundled. Read once, without a bridge call.
+let nativeConstantsCache = null;
+const getNativeConstants = () => {
+  const NiSdk = !nativeConstantsCache && Platform.OS === 'android' ? getNiSdk() : null;
+  if (NiSdk) {
+    nativeConstantsCache = typeof NiSdk.getConstants === 'function' ? NiSdk.getConstants() : NiSdk;
+  }
+  return nativeConstantsCache || {};
+};
+
+/**
+ * Returns the device info used for the User-Agent synchronously.
+ * */
+export const getDeviceInfoSync = () => {
+  const { deviceInfo } = getNativeConstants();
+  if (deviceInfo) {
+    return deviceInfo;
+  }
+  // Fallback for iOS or if native module not available
+  return {
+    platform: Platform.OS,
+    manufacturer: 'unknown',
+    model: 'unknown',
+    osVersion: 0,
+  };
 };
 
+// Helper function to get device info for User-Agent
+export const getDeviceInfo = () => Promise.resolve(getDeviceInfoSync());
+
 // The native iOS SDK decodes the whole order into a strongly-typed model whose
 // `WalletProvider` enum rejects values it doesn't know (e.g. "GOOGLE_PAY" when
 // Google Pay is enabled on the outlet). An unknown value makes the entire order
@@ -66,23 +70,124 @@ const stripWalletMethods = (value) => {
   return value;
 };
 
+// Android exposes promise-based variants of the payment methods. They resolve with one
+// result map ({ status, code, orderReference, paymentState, errorCode, errorMessage })
+// for every outcome, so no callback has to be wrapped here.
+const hasNativeMethod = (name) => {
+  const NiSdk = getNiSdk();
+  return !!NiSdk && typeof NiSdk[name] === 'function';
+};
+
+// Orders can be passed as the parsed object or as the JSON string received from the API.
+// Android reads only the fields it needs from the JSON string natively, so the order is
+// neither deep-copied by stripWalletMethods nor converted into a native map there.
+const toOrderJson = (order) => (typeof order === 'string' ? order : JSON.stringify(order));
+const toOrderObject = (order) => (typeof order === 'string' ? JSON.parse(order) : order);
+
+const settleResult = (result) => {
+  if (result.status === 'Success') {
+    return result;
+  }
+  return Promise.reject({ ...result, error: result.errorMessage });
+};
+
 const initiateCardPayment = (rawOrder) => {
-  const order = stripWalletMethods(rawOrder);
+  if (hasNativeMethod('startCardPaymentWithJson')) {
+    return getNiSdk().startCardPaymentWithJson(toOrderJson(rawOrder)).then(settleResult);
+  }
+  const order = stripWalletMethods(toOrderObject(rawOrder));
+  if (hasNativeMethod('startCardPayment')) {
+    return getNiSdk().startCardPayment(order).then(settleResult);
+  }
   return new Promise((resolve, reject) => {
-    return NiSdk.initiateCardPaymentUI(order, (status) => {
+    // Card results come with the full result map as the last argument
+    return getNiSdk().initiateCardPaymentUI(order, (status, errorMessage, result) => {
       switch (status) {
         case "Success":
-          resolve({ status });
+          resolve({ ...result, status });
           break;
         case "Failed":
         case "Aborted":
         default:
-          reject({ status });
+          reject({ ...result, status });
       }
     });
   });
 }
 
+/**
+ * Validates the order and builds the card payment request as soon as the order is created,
+ * so that launching it when the user taps Pay (and retrying after a failure) is instant.
+ * Resolves with a handle for `launchPreparedPayment`.
+ * @param {Object} order - order response received from NGenius create order API
+ * @returns {Promise<string|Object>} handle
+ * */
+const prepareCardPayment = (rawOrder) => {
+  if (hasNativeMethod('prepareCardPaymentWithJson')) {
+    return getNiSdk().prepareCardPaymentWithJson(toOrderJson(rawOrder));
+  }
+  const order = stripWalletMethods(toOrderObject(rawOrder));
+  if (!hasNativeMethod('prepareCardPayment')) {
+    // Nothing to prepare natively; the order itself serves as the handle
+    return Promise.resolve(order);
+  }
+  return getNiSdk().prepareCardPayment(order);
+};
+
+/**
+ * Launches a card payment prepared by `prepareCardPayment`. Settles like `initiateCardPayment`;
+ * the handle can be launched again to retry. Rejects with errorCode `HANDLE_EXPIRED` when the
+ * handle was evicted, in which case prepare the order again.
+ * @param {string|Object} handle
+ * */
+const launchPreparedPayment = (handle) => {
+  if (typeof handle !== 'string' || !hasNativeMethod('launchPreparedPayment')) {
+    return initiateCardPayment(handle);
+  }
+  return getNiSdk().launchPreparedPayment(handle).then(settleResult);
+};
+
+/**
+ * @typedef {Object} orderRequest
+ * @property {string} url - e.g. your backend's create-order endpoint
+ * @property {string} [method] - defaults to POST with a body, GET otherwise
+ * @property {Object<string, string>} [headers]
+ * @property {string} [body]
+ * */
+
+/**
+ * Creates or fetches an order and prepares its card payment. On Android the request is made
+ * natively on React Native's shared HTTP connection pool and the order JSON never crosses the
+ * bridge. Pass the handle to `launchPreparedPayment`.
+ * @param {orderRequest} request
+ * @returns {Promise<{handle: string|Object, reference: string}>}
+ * */
+const fetchOrder = (request) => {
+  if (hasNativeMethod('fetchOrder')) {
+    return getNiSdk().fetchOrder(request);
+  }
+  const { url, ...init } = request;
+  return fetch(url, init).then((response) => {
+    if (!response.ok) {
+      return Promise.reject({ errorCode: 'HTTP_ERROR', error: `HTTP ${response.status}` });
+    }
+    return response.json().then((order) => ({ handle: order, reference: order.reference }));
+  });
+};
+
+/**
+ * Warms up the connections to the payment gateway API hosts of an order or 3DS payment response,
+ * so the SDK's first API calls do not start with a cold DNS lookup and TLS handshake. 3DS pages
+ * shown in a WebView are not affected. Call it as soon as the order is known; `fetchOrder` does
+ * this by itself. No-op on other platforms.
+ * @param {Object|string} orderOrPaymentResponse
+ * */
+const preconnect = (orderOrPaymentResponse) => {
+  if (Platform.OS === 'android' && hasNativeMethod('preconnect')) {
+    getNiSdk().preconnect(toOrderObject(orderOrPaymentResponse));
+  }
+};
+
 const initiateSamsungPay = (order, merchantName, serviceId) => {
   return new Promise((resolve, reject) => {
     if (Platform.OS === 'android') {
@@ -94,7 +199,19 @@ const initiateSamsungPay = (order, merchantName, serviceId) => {
         reject({ status: 'Error', error: 'ServiceId is not found' });
         return;
       }
-      return NiSdk.initiateSamsungPay(
+      if (hasNativeMethod('startSamsungPayWithJson')) {
+        getNiSdk().startSamsungPayWithJson(toOrderJson(order), merchantName, serviceId)
+          .then(settleResult)
+          .then(resolve, reject);
+        return;
+      }
+      if (hasNativeMethod('startSamsungPay')) {
+        getNiSdk().startSamsungPay(order, merchantName, serviceId)
+          .then(settleResult)
+          .then(resolve, reject);
+        return;
+      }
+      return getNiSdk().initiateSamsungPay(
         order,
         merchantName,
         serviceId,
@@ -152,7 +269,7 @@ const initiateApplePay = (order, applePayConfig) => {
       if (!_applePayConfig.merchantName) {
         _applePayConfig.merchantName = 'Total';
       }
-      return NiSdk.initiateApplePay(order, _applePayConfig, (status, errorStr) => {
+      return getNiSdk().initiateApplePay(order, _applePayConfig, (status, errorStr) => {
         switch (status) {
           case "Success":
             resolve({ status });
@@ -172,7 +289,7 @@ const isSamsungPaySupported = (serviceId) => {
   return new Promise((resolve, reject) => {
     if (Platform.OS === 'android') {
       // Native impl
-      NiSdk.isSamsungPayEnabled(serviceId, (status) => {
+      getNiSdk().isSamsungPayEnabled(serviceId, (status) => {
         resolve(status);
       });
     } else {
@@ -185,7 +302,7 @@ const isApplePaySupported = () => {
   return new Promise((resolve, reject) => {
     if (Platform.OS === 'ios') {
       // Native impl
-      NiSdk.isApplePaySupported((isSupported) => {
+      getNiSdk().isApplePaySupported((isSupported) => {
         resolve(isSupported);
       });
     } else {
@@ -204,16 +321,63 @@ const isApplePaySupported = () => {
  * @property {string} [merchantOrigin] - Optional merchant origin URL
  * */
 
+let isGooglePayConfigured = false;
+
+const validateGooglePayConfig = (googlePayConfig) => {
+  if (!googlePayConfig.merchantName) {
+    return 'Merchant name is not found';
+  }
+  if (!googlePayConfig.gateway) {
+    return 'Gateway is not found';
+  }
+  if (!googlePayConfig.gatewayMerchantId) {
+    return 'Gateway merchant ID is not found';
+  }
+  return null;
+};
+
+/**
+ * Validates the static Google Pay config once and prepares the payment request on the
+ * native side. After it resolves, `initiateGooglePay` and `isGooglePaySupported` can be
+ * called without passing the config again.
+ * @param {googlePayConfig} googlePayConfig - config for Google Pay
+ * */
+const configureGooglePay = (googlePayConfig) => {
+  return new Promise((resolve, reject) => {
+    if (Platform.OS !== 'android') {
+      reject({ status: 'Not Supported', error: 'Google Pay is not supported on this platform' });
+      return;
+    }
+    if (!googlePayConfig) {
+      reject({ status: 'Error', error: 'Google Pay configuration is missing' });
+      return;
+    }
+    const configError = validateGooglePayConfig(googlePayConfig);
+    if (configError) {
+      reject({ status: 'Error', error: configError });
+      return;
+    }
+    getNiSdk().configureGooglePay(googlePayConfig, (status, errorStr) => {
+      if (status === 'Success') {
+        isGooglePayConfigured = true;
+        resolve({ status });
+      } else {
+        reject({ status, error: errorStr });
+      }
+    });
+  });
+};
+
 /**
  * Use this to initiate a Google Pay transaction.
  * @param order - order info received from NGenius
- * @param {googlePayConfig} googlePayConfig - config for Google Pay
+ * @param {googlePayConfig} [googlePayConfig] - config for Google Pay, optional once `configureGooglePay` has resolved
  * */
 
 const initiateGooglePay = (order, googlePayConfig) => {
   return new Promise((resolve, reject) => {
     if (Platform.OS === 'android') {
-      if (!NiSdk) {
+      if (!getNiSdk()) {
         reject({ status: 'Error', error: 'Native module NiSdk is not available' });
         return;
       }
@@ -225,21 +389,16 @@ const initiateGooglePay = (order, googlePayConfig) => {
         reject({ status: 'Error', error: 'Order amount is missing' });
         return;
       }
-      if (!googlePayConfig) {
+      if (!googlePayConfig && !isGooglePayConfigured) {
         reject({ status: 'Error', error: 'Google Pay configuration is missing' });
         return;
       }
-      if (!googlePayConfig.merchantName) {
-        reject({ status: 'Error', error: 'Merchant name is not found' });
-        return;
-      }
-      if (!googlePayConfig.gateway) {
-        reject({ status: 'Error', error: 'Gateway is not found' });
-        return;
-      }
-      if (!googlePayConfig.gatewayMerchantId) {
-        reject({ status: 'Error', error: 'Gateway merchant ID is not found' });
-        return;
+      if (googlePayConfig) {
+        const configError = validateGooglePayConfig(googlePayConfig);
+        if (configError) {
+          reject({ status: 'Error', error: configError });
+          return;
+        }
       }
 
       // Use formattedValue from order response (as per paypage-app pattern)
@@ -249,13 +408,21 @@ const initiateGooglePay = (order, googlePayConfig) => {
       
       const orderDetails = {
         amount: amount,
-        currencyCode: order.amount.currencyCode
+        currencyCode: order.amount.currencyCode,
+        reference: order.reference,
       };
 
-      return NiSdk.initiateGooglePay(googlePayConfig, orderDetails, (status, tokenOrError) => {
+      if (hasNativeMethod('startGooglePay')) {
+        getNiSdk().startGooglePay(googlePayConfig || null, orderDetails)
+          .then(settleResult)
+          .then(resolve, reject);
+        return;
+      }
+
+      return getNiSdk().initiateGooglePay(googlePayConfig || null, orderDetails, (status, tokenOrError, cardInfo) => {
         switch (status) {
           case "Success":
-            resolve({ status, token: tokenOrError });
+            resolve({ status, token: tokenOrError, ...cardInfo });
             break;
           case "Failed":
           case "Aborted":
@@ -272,12 +439,12 @@ const initiateGooglePay = (order, googlePayConfig) => {
 const isGooglePaySupported = (googlePayConfig) => {
   return new Promise((resolve, reject) => {
     if (Platform.OS === 'android') {
-      if (!NiSdk || !NiSdk.isGooglePaySupported) {
+      if (!hasNativeMethod('isGooglePaySupported')) {
         reject({ status: 'Not Supported', error: 'Google Pay is not available' });
         return;
       }
-      const config = googlePayConfig || { environment: 'PRODUCTION' };
-      NiSdk.isGooglePaySupported(config, (isSupported) => {
+      const config = googlePayConfig || (isGooglePayConfigured ? null : { environment: 'PRODUCTION' });
+      getNiSdk().isGooglePaySupported(config, (isSupported) => {
         resolve(isSupported);
       });
     } else {
@@ -286,6 +453,172 @@ const isGooglePaySupported = (googlePayConfig) => {
   });
 };
 
+/**
+ * Prepares the Google Pay client for the given environment ahead of time, so that
+ * the first isGooglePaySupported / initiateGooglePay call is fast. Call it once
+ * when the app starts. No-op on platforms without Google Pay.
+ * @param {googlePayConfig} googlePayConfig - config for Google Pay (only `environment` is used)
+ * */
+const warmUpGooglePay = (googlePayConfig) => {
+  if (Platform.OS === 'android' && hasNativeMethod('warmUp')) {
+    getNiSdk().warmUp(googlePayConfig || { environment: 'PRODUCTION' });
+  }
+};
+
+/**
+ * @typedef {Object} availablePaymentMethodsConfig
+ * @property {googlePayConfig} [googlePay] - probe Google Pay in this environment
+ * @property {{serviceId: string}} [samsungPay] - probe Samsung Pay for this service ID
+ * */
+
+/**
+ * Checks all wallets in one native call. On Android the Google Pay and Samsung Pay probes run
+ * in parallel and their answers are cached natively for a few minutes (until the app is
+ * resumed from the background), so calling this on every checkout render is cheap.
+ * @param {availablePaymentMethodsConfig} config
+ * @returns {Promise<{googlePay?: boolean, samsungPay?: boolean, applePay?: boolean}>}
+ * */
+const getAvailablePaymentMethods = (config = {}) => {
+  if (Platform.OS === 'ios') {
+    return isApplePaySupported().then((applePay) => ({ applePay }));
+  }
+  if (!hasNativeMethod('getAvailablePaymentMethods')) {
+    return Promise.resolve({});
+  }
+  return getNiSdk().getAvailablePaymentMethods(config);
+};
+
+/**
+ * Returns the Google Pay availability the native side already knows for the environment,
+ * synchronously and without running a probe. Returns null when it is not known yet,
+ * e.g. before `warmUpGooglePay` has completed.
+ * @param {string} [environment] - 'TEST' or 'PRODUCTION'
+ * @returns {?boolean}
+ * */
+const getCachedGooglePayAvailability = (environment = 'PRODUCTION') => {
+  if (Platform.OS !== 'android' || !hasNativeMethod('getCachedWalletAvailability')) {
+    return null;
+  }
+  const { googlePay } = getNiSdk().getCachedWalletAvailability();
+  return googlePay && environment in googlePay ? googlePay[environment] : null;
+};
+
+/**
+ * Latency percentiles of the native payment flows, in milliseconds measured from the moment
+ * the call reached the native side, per flow and outcome. For example:
+ * { cardPayment: { launch: { count, p50, p95, p99 }, Success: {...}, Aborted: {...} } }
+ * Returns an empty object on platforms that do not record metrics.
+ * @returns {Object}
+ * */
+const getMetrics = () => {
+  if (Platform.OS !== 'android' || !hasNativeMethod('getMetrics')) {
+    return {};
+  }
+  return getNiSdk().getMetrics();
+};
+
+/**
+ * Clears the recorded flow latencies, e.g. after they were shipped to telemetry.
+ * */
+const resetMetrics = () => {
+  if (Platform.OS === 'android' && hasNativeMethod('resetMetrics')) {
+    getNiSdk().resetMetrics();
+  }
+};
+
+const PAYMENT_EVENT = 'NiSdkPaymentEvent';
+let paymentEventEmitter;
+
+/**
+ * @typedef {Object} paymentEvent
+ * @property {string} type - activityLaunched, threeDSStarted, sheetShown, returnedToApp, resultParsed
+ *   or orderStatusChanged (see watchOrderStatus)
+ * @property {number} operationId - identifies the payment flow the event belongs to
+ * @property {string} flow - cardPayment, threeDSTwo, samsungPay or googlePay
+ * @property {?string} orderReference
+ * @property {string} [status] - the result status, for resultParsed
+ * @property {string} [paymentState] - the new payment state, for orderStatusChanged
+ * @property {number} timestamp - milliseconds since the epoch
+ * */
+
+/**
+ * Subscribes to the intermediate steps of the payment flows, e.g. to prefetch the order
+ * status while the user is still in the payment UI. Events are only produced natively while
+ * at least one listener is subscribed. Android only; elsewhere the listener is never called.
+ * @param {(event: paymentEvent) => void} listener
+ * @returns {{remove: () => void}} subscription
+ * */
+const addPaymentEventListener = (listener) => {
+  if (Platform.OS !== 'android' || !hasNativeMethod('addListener')) {
+    return { remove: () => {} };
+  }
+  if (!paymentEventEmitter) {
+    paymentEventEmitter = new NativeEventEmitter(getNiSdk());
+  }
+  // Events raised close together arrive as one batch
+  return paymentEventEmitter.addListener(PAYMENT_EVENT, (events) => events.forEach(listener));
+};
+
+/**
+ * @typedef {Object} orderStatusOptions
+ * @property {number} [initialDelayMs] - delay before the second poll, doubled on every unchanged poll (default 2000)
+ * @property {number} [maxDelayMs] - upper bound of the delay between polls (default 30000)
+ * @property {number} [maxPolls] - polls after which the SDK gives up (default 20)
+ * */
+
+/**
+ * Polls the status of an order natively, with backoff and conditional requests, until its
+ * payment reaches a final state (AUTHORISED, CAPTURED, PURCHASED, FAILED, ...). Every change of
+ * the payment state is delivered to `addPaymentEventListener` as an `orderStatusChanged` event
+ * with `orderReference` and `paymentState`. Polling also restarts right away when the app
+ * returns to the foreground. Android only; resolves without polling elsewhere.
+ * @param {string} orderReference
+ * @param {{url: string, headers?: Object<string, string>}} request - the order status endpoint
+ * @param {orderStatusOptions} [options]
+ * @returns {Promise<void>}
+ * */
+const watchOrderStatus = (orderReference, request, options) => {
+  if (Platform.OS !== 'android' || !hasNativeMethod('watchOrderStatus')) {
+    return Promise.resolve();
+  }
+  return getNiSdk().watchOrderStatus(orderReference, request, options || null);
+};
+
+const unwatchOrderStatus = (orderReference) => {
+  if (Platform.OS === 'android' && hasNativeMethod('unwatchOrderStatus')) {
+    getNiSdk().unwatchOrderStatus(orderReference);
+  }
+};
+
+/**
+ * @typedef {Object} pendingPayment
+ * @property {string} id - pass it to `dismissPendingPayment` once the payment is reconciled
+ * @property {string} [orderReference]
+ * @property {string} [flow] - `cardPayment`, `threeDSTwo`, `samsungPay` or `googlePay`
+ * @property {number} requestCode
+ * @property {number} startedAt - epoch milliseconds
+ * @property {Object} [result] - the payment result, when the payment UI returned it after a restart
+ * */
+
+/**
+ * Returns the payments a previous run of the app started but never received the result of,
+ * e.g. because the app was killed while the payment UI was open. Check the status of each order
+ * (see `watchOrderStatus`) and dismiss it. Android only; resolves with an empty list elsewhere.
+ * @returns {Promise<pendingPayment[]>}
+ * */
+const getPendingPayments = () => {
+  if (Platform.OS !== 'android' || !hasNativeMethod('getPendingPayments')) {
+    return Promise.resolve([]);
+  }
+  return getNiSdk().getPendingPayments();
+};
+
+const dismissPendingPayment = (id) => {
+  if (Platform.OS === 'android' && hasNativeMethod('dismissPendingPayment')) {
+    getNiSdk().dismissPendingPayment(id);
+  }
+};
+
 // A normalised sdk config function
 const configureSDK = (config) => {
   if (!config) {
@@ -295,23 +628,33 @@ const configureSDK = (config) => {
   // Supported configs for android platform
   if (Platform.OS === 'android') {
     if ('shouldShowOrderAmount' in config) {
-      NiSdk.configureSDK({
+      getNiSdk().configureSDK({
         shouldShowOrderAmount: config.shouldShowOrderAmount
       });
     }
+    if (config.googlePay) {
+      configureGooglePay(config.googlePay).catch((e) => {
+        if (__DEV__) {
+          console.warn('configureSDK: Google Pay configuration failed', e);
+        }
+      });
+    }
   }
 
   // Supported configs on iOS
   if (Platform.OS === 'ios') {
     if ('language' in config) {
-      NiSdk.setLocale(config.language);
+      getNiSdk().setLocale(config.language);
     }
   }
 }
 
 const executeThreeDSTwo = (paymentResponse) => {
+  if (hasNativeMethod('startThreeDSTwo')) {
+    return getNiSdk().startThreeDSTwo(paymentResponse).then(settleResult);
+  }
   return new Promise((resolve, reject) => {
-    return NiSdk.executeThreeDSTwo(paymentResponse, (status) => {
+    return getNiSdk().executeThreeDSTwo(paymentResponse, (status) => {
       switch (status) {
         case "Success":
           resolve({ status });
@@ -328,12 +671,27 @@ const executeThreeDSTwo = (paymentResponse) => {
 // export * from './apple-pay-constants';
 export {
   initiateCardPayment,
+  prepareCardPayment,
+  launchPreparedPayment,
+  fetchOrder,
+  preconnect,
   initiateSamsungPay,
   initiateApplePay,
   initiateGooglePay,
   isSamsungPaySupported,
   isApplePaySupported,
   isGooglePaySupported,
+  warmUpGooglePay,
+  getCachedGooglePayAvailability,
+  getAvailablePaymentMethods,
+  getMetrics,
+  resetMetrics,
+  addPaymentEventListener,
+  watchOrderStatus,
+  unwatchOrderStatus,
+  getPendingPayments,
+  dismissPendingPayment,
+  configureGooglePay,
   configureSDK,
   executeThreeDSTwo
 };
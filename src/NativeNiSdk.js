@@ -0,0 +1,83 @@
+/**
+ * Codegen spec of the Android NiSdk native module. On the new architecture the module is
+ * loaded as a TurboModule from this spec; on the old architecture `TurboModuleRegistry.get`
+ * returns null and callers fall back to `NativeModules.NiSdk`.
+ *
+ * @flow
+ * @format
+ */
+
+import type { TurboModule } from 'react-native/Libraries/TurboModule/RCTExport';
+import { TurboModuleRegistry } from 'react-native';
+
+export interface Spec extends TurboModule {
+  +getConstants: () => {|
+    deviceInfo: {|
+      platform: string,
+      manufacturer: string,
+      model: string,
+      osVersion: number,
+    |},
+    sdkVersion: string,
+    features: {|
+      googlePay: boolean,
+      samsungPay: boolean,
+    |},
+  |};
+
+  // Synchronous reads of values that are already known natively
+  +getDeviceInfoSync: () => Object;
+  +getCachedWalletAvailability: () => Object;
+  +getMetrics: () => Object;
+
+  +getDeviceInfo: (callback: (info: Object) => void) => void;
+  +configureSDK: (config: Object) => void;
+  +resetMetrics: () => void;
+
+  +initiateCardPaymentUI: (order: Object, callback: (status: string) => void) => void;
+  +startCardPayment: (order: Object) => Promise<Object>;
+  +startCardPaymentWithJson: (orderJson: string) => Promise<Object>;
+  +prepareCardPayment: (order: Object) => Promise<string>;
+  +prepareCardPaymentWithJson: (orderJson: string) => Promise<string>;
+  +launchPreparedPayment: (handle: string) => Promise<Object>;
+  +fetchOrder: (request: Object) => Promise<Object>;
+  +preconnect: (orderOrPaymentResponse: Object) => void;
+  +watchOrderStatus: (orderReference: string, request: Object, options: ?Object) => Promise<void>;
+  +unwatchOrderStatus: (orderReference: string) => void;
+  +getPendingPayments: () => Promise<Array<Object>>;
+  +dismissPendingPayment: (id: string) => void;
+  +executeThreeDSTwo: (paymentResponse: Object, callback: (status: string) => void) => void;
+  +startThreeDSTwo: (paymentResponse: Object) => Promise<Object>;
+
+  +initiateSamsungPay: (
+    order: Object,
+    merchantName: string,
+    serviceId: string,
+    callback: (status: string) => void,
+  ) => void;
+  +startSamsungPay: (order: Object, merchantName: string, serviceId: string) => Promise<Object>;
+  +startSamsungPayWithJson: (
+    orderJson: string,
+    merchantName: string,
+    serviceId: string,
+  ) => Promise<Object>;
+  +isSamsungPayEnabled: (serviceId: string, callback: (isEnabled: boolean) => void) => void;
+
+  +warmUp: (googlePayConfig: Object) => void;
+  +configureGooglePay: (googlePayConfig: Object, callback: (status: string) => void) => void;
+  +isGooglePaySupported: (googlePayConfig: ?Object, callback: (isSupported: boolean) => void) => void;
+  +initiateGooglePay: (
+    googlePayConfig: ?Object,
+    orderDetails: Object,
+    callback: (status: string) => void,
+  ) => void;
+  +startGooglePay: (googlePayConfig: ?Object, orderDetails: Object) => Promise<Object>;
+
+  +getAvailablePaymentMethods: (config: Object) => Promise<Object>;
+
+  // Payment events, subscribed to through NativeEventEmitter
+  +addListener: (eventName: string) => void;
+  +removeListeners: (count: number) => void;
+}
+
+export default (TurboModuleRegistry.get<Spec>('NiSdk'): ?Spec);